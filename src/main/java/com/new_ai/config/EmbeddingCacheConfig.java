@@ -0,0 +1,31 @@
+package com.new_ai.config;
+
+import com.new_ai.service.CachingEmbeddingModel;
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.nio.file.Paths;
+
+@Configuration
+@ConditionalOnProperty(name = "rag.embedding.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class EmbeddingCacheConfig {
+
+    // VectorStore 등 EmbeddingModel을 주입받는 모든 곳이 캐시를 거치도록 @Primary로 등록
+    @Bean
+    @Primary
+    public CachingEmbeddingModel cachingEmbeddingModel(
+            OllamaEmbeddingModel ollamaEmbeddingModel,
+            @Value("${spring.ai.ollama.embedding.model:nomic-embed-text}") String modelName,
+            @Value("${spring.ai.vectorstore.pgvector.dimensions:768}") int dimensions,
+            @Value("${rag.embedding.cache.memory-entries:10000}") int memoryEntries,
+            @Value("${rag.embedding.cache.disk-path:./data/embedding-cache.bin}") String diskPath,
+            @Value("${rag.embedding.cache.disk-entries:50000}") int diskEntries) {
+
+        return new CachingEmbeddingModel(ollamaEmbeddingModel, modelName, dimensions,
+                memoryEntries, Paths.get(diskPath), diskEntries);
+    }
+}
@@ -0,0 +1,101 @@
+package com.new_ai.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 태깅 규칙은 tagging-rules.properties(UTF-8)에서 읽는다
+// application.properties는 ISO-8859-1로 읽히므로 한글 키워드는 별도 파일에 둔다
+@Configuration
+@ConfigurationProperties(prefix = "rag.tagging")
+@PropertySource(value = "classpath:tagging-rules.properties", encoding = "UTF-8")
+public class TaggingProperties {
+
+    // 태그 이름 -> 본문 키워드 목록
+    private Map<String, List<String>> keywords = new LinkedHashMap<>();
+
+    // 파일명 규칙 (위에서부터 처음 일치하는 규칙 사용)
+    private List<TypeRule> types = new ArrayList<>();
+
+    private String defaultType = "general";
+    private String defaultCategory = "misc";
+
+    public Map<String, List<String>> getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(Map<String, List<String>> keywords) {
+        this.keywords = keywords;
+    }
+
+    public List<TypeRule> getTypes() {
+        return types;
+    }
+
+    public void setTypes(List<TypeRule> types) {
+        this.types = types;
+    }
+
+    public String getDefaultType() {
+        return defaultType;
+    }
+
+    public void setDefaultType(String defaultType) {
+        this.defaultType = defaultType;
+    }
+
+    public String getDefaultCategory() {
+        return defaultCategory;
+    }
+
+    public void setDefaultCategory(String defaultCategory) {
+        this.defaultCategory = defaultCategory;
+    }
+
+    public static class TypeRule {
+
+        // 파일명 접두어 중 하나로 시작해야 함
+        private List<String> prefixes = new ArrayList<>();
+        // 비어 있지 않으면 파일명에 이 중 하나가 포함되어야 함
+        private List<String> contains = new ArrayList<>();
+        private String type;
+        private String category;
+
+        public List<String> getPrefixes() {
+            return prefixes;
+        }
+
+        public void setPrefixes(List<String> prefixes) {
+            this.prefixes = prefixes;
+        }
+
+        public List<String> getContains() {
+            return contains;
+        }
+
+        public void setContains(List<String> contains) {
+            this.contains = contains;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public void setCategory(String category) {
+            this.category = category;
+        }
+    }
+}
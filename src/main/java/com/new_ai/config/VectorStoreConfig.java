@@ -0,0 +1,51 @@
+package com.new_ai.config;
+
+import com.new_ai.service.LocalVectorStore;
+import com.new_ai.service.ReplicaVectorStore;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+// rag.vectorstore.mode
+//   pgvector (기본): 자동 구성된 PgVectorStore 사용
+//   local: 프로세스 안의 LocalVectorStore만 사용 (PostgreSQL 없이 개발/테스트)
+//   replica: PostgreSQL이 원본, 검색은 LocalVectorStore 복제본에서 처리
+// PgVectorStore 자동 구성은 PgVectorStore 타입 빈이 없을 때만 생성되므로 세 모드 모두에서 존재한다
+@Configuration
+public class VectorStoreConfig {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "rag.vectorstore.mode", havingValue = "local")
+    public LocalVectorStore localVectorStore(
+            EmbeddingModel embeddingModel,
+            @Value("${spring.ai.vectorstore.pgvector.dimensions:768}") int dimensions,
+            @Value("${rag.vectorstore.local.path:./data/local-vector-store}") String path) throws IOException {
+
+        return new LocalVectorStore(embeddingModel, dimensions, Paths.get(path));
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "rag.vectorstore.mode", havingValue = "replica")
+    public ReplicaVectorStore replicaVectorStore(
+            PgVectorStore pgVectorStore,
+            EmbeddingModel embeddingModel,
+            JdbcTemplate jdbcTemplate,
+            @Value("${spring.ai.vectorstore.pgvector.dimensions:768}") int dimensions,
+            @Value("${rag.vectorstore.local.path:./data/local-vector-store}") String path,
+            @Value("${spring.ai.vectorstore.pgvector.schema-name:public}") String schemaName,
+            @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}") String tableName) throws IOException {
+
+        LocalVectorStore replica = new LocalVectorStore(embeddingModel, dimensions, Paths.get(path));
+        return new ReplicaVectorStore(pgVectorStore, replica, jdbcTemplate, schemaName + "." + tableName);
+    }
+}
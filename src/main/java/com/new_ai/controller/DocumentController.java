@@ -1,9 +1,12 @@
 package com.new_ai.controller;
 
 import com.new_ai.service.DocumentProcessor;
+import com.new_ai.service.DocumentWriteCoalescer;
+import com.new_ai.service.IngestionJob;
+import com.new_ai.service.IngestionJobService;
+import com.new_ai.service.IngestionPipeline;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.reader.TextReader;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.ResponseEntity;
@@ -12,7 +15,9 @@ import org.springframework.web.bind.annotation.*;
 import java.io.File;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,7 +31,13 @@ public class DocumentController {
     private DocumentProcessor documentProcessor;
     
     @Autowired
-    private VectorStore vectorStore;
+    private IngestionPipeline ingestionPipeline;
+    
+    @Autowired
+    private IngestionJobService ingestionJobService;
+    
+    @Autowired
+    private DocumentWriteCoalescer documentWriteCoalescer;
     
     @PostMapping("/process-directory")
     public ResponseEntity<Map<String, Object>> processDirectory(@RequestBody Map<String, String> request) {
@@ -38,11 +49,19 @@ public class DocumentController {
                         .body(Map.of("error", "Directory path is required"));
             }
             
-            documentProcessor.processDocumentsFromDirectory(directoryPath);
+            // mode=rebuild: staging 테이블에 전체 적재 후 인덱스를 한 번에 만들고 교체
+            boolean rebuild = "rebuild".equalsIgnoreCase(request.get("mode"));
+            
+            // 요청 스레드를 붙잡지 않도록 백그라운드 작업으로 제출
+            IngestionJob job = ingestionJobService.submit(rebuild ? "rebuild-index" : "process-directory", directoryPath,
+                    stats -> documentProcessor.processDocumentsFromDirectory(directoryPath, stats, rebuild));
             
-            return ResponseEntity.ok(Map.of(
-                    "message", "Documents processed successfully",
+            return ResponseEntity.accepted().body(Map.of(
+                    "message", "Document processing job submitted",
+                    "jobId", job.getId(),
+                    "statusUrl", "/api/documents/jobs/" + job.getId(),
                     "directoryPath", directoryPath,
+                    "mode", rebuild ? "rebuild" : "incremental",
                     "timestamp", System.currentTimeMillis()
             ));
             
@@ -65,7 +84,6 @@ public class DocumentController {
                 return ResponseEntity.badRequest().body(errorResponse);
             }
             
-            List<Document> allDocuments = new ArrayList<>();
             File[] files = docDir.listFiles((dir, name) -> name.endsWith(".txt"));
             
             if (files == null || files.length == 0) {
@@ -75,56 +93,21 @@ public class DocumentController {
                 return ResponseEntity.badRequest().body(errorResponse);
             }
             
-            int successCount = 0;
-            int errorCount = 0;
-            List<String> loadedFiles = new ArrayList<>();
-            List<String> errorFiles = new ArrayList<>();
-            
-            for (File file : files) {
-                try {
-                    FileSystemResource resource = new FileSystemResource(file);
-                    TextReader textReader = new TextReader(resource);
-                    List<Document> documents = textReader.get();
-                    
-                    for (Document doc : documents) {
-                        Map<String, Object> metadata = new HashMap<>(doc.getMetadata());
-                        metadata.put("filename", file.getName());
-                        metadata.put("source", "TRPG_Documents");
-                        metadata.put("type", determineDocumentType(file.getName()));
-                        metadata.put("title", extractTitle(file.getName()));
-                        metadata.put("loadTime", System.currentTimeMillis());
-                        
-                        Document enhancedDoc = new Document(doc.getContent(), metadata);
-                        allDocuments.add(enhancedDoc);
-                    }
-                    
-                    loadedFiles.add(file.getName());
-                    successCount++;
-                    
-                } catch (Exception e) {
-                    errorFiles.add(file.getName() + " (" + e.getMessage() + ")");
-                    errorCount++;
-                }
-            }
+            List<Path> filePaths = Arrays.stream(files).map(File::toPath).toList();
             
-            if (!allDocuments.isEmpty()) {
-                vectorStore.add(allDocuments);
-            }
+            // 변경되지 않은 파일은 건너뛰고, 변경/삭제된 파일의 이전 청크는 정리
+            IngestionJob job = ingestionJobService.submit("load-trpg-docs", documentsPath,
+                    stats -> ingestionPipeline.ingest(docDir.toPath(), filePaths, this::readTrpgDocument, stats));
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "✅ TRPG 문서 로딩 완료!");
+            response.put("message", "✅ TRPG 문서 로딩 작업이 시작되었습니다");
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/api/documents/jobs/" + job.getId());
             response.put("totalFiles", files.length);
-            response.put("successCount", successCount);
-            response.put("errorCount", errorCount);
-            response.put("totalDocuments", allDocuments.size());
-            response.put("loadedFiles", loadedFiles);
-            if (!errorFiles.isEmpty()) {
-                response.put("errorFiles", errorFiles);
-            }
             response.put("timestamp", System.currentTimeMillis());
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted().body(response);
             
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -135,6 +118,42 @@ public class DocumentController {
         }
     }
     
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> getJobs() {
+        List<Map<String, Object>> jobs = ingestionJobService.getJobs().stream()
+                .map(IngestionJob::toMap)
+                .toList();
+        
+        return ResponseEntity.ok(Map.of(
+                "jobs", jobs,
+                "timestamp", System.currentTimeMillis()
+        ));
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return ingestionJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toMap()))
+                .orElseGet(() -> ResponseEntity.status(404)
+                        .body(Map.of("error", "작업을 찾을 수 없습니다: " + jobId)));
+    }
+    
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId) {
+        if (ingestionJobService.getJob(jobId).isEmpty()) {
+            return ResponseEntity.status(404)
+                    .body(Map.of("error", "작업을 찾을 수 없습니다: " + jobId));
+        }
+        
+        boolean cancelled = ingestionJobService.cancel(jobId);
+        return ResponseEntity.ok(Map.of(
+                "jobId", jobId,
+                "cancelled", cancelled,
+                "message", cancelled ? "작업 취소를 요청했습니다" : "이미 종료된 작업입니다",
+                "timestamp", System.currentTimeMillis()
+        ));
+    }
+    
     @PostMapping("/add-test-doc")
     public ResponseEntity<Map<String, Object>> addTestDocument(@RequestParam String content) {
         try {
@@ -144,10 +163,11 @@ public class DocumentController {
             metadata.put("type", "test");
             metadata.put("title", "테스트 문서");
             metadata.put("source", "manual_test");
+            metadata.put("world_type", "all");
             metadata.put("timestamp", System.currentTimeMillis());
             
             Document testDoc = new Document(decodedContent, metadata);
-            vectorStore.add(List.of(testDoc));
+            documentWriteCoalescer.add(testDoc);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -165,6 +185,25 @@ public class DocumentController {
         }
     }
     
+    private List<Document> readTrpgDocument(Path filePath) {
+        File file = filePath.toFile();
+        TextReader textReader = new TextReader(new FileSystemResource(file));
+        
+        List<Document> enhancedDocuments = new ArrayList<>();
+        for (Document doc : textReader.get()) {
+            Map<String, Object> metadata = new HashMap<>(doc.getMetadata());
+            metadata.put("filename", file.getName());
+            metadata.put("source", "TRPG_Documents");
+            metadata.put("world_type", "all");
+            metadata.put("type", determineDocumentType(file.getName()));
+            metadata.put("title", extractTitle(file.getName()));
+            metadata.put("loadTime", System.currentTimeMillis());
+            
+            enhancedDocuments.add(new Document(doc.getContent(), metadata));
+        }
+        return enhancedDocuments;
+    }
+    
     private String determineDocumentType(String filename) {
         if (filename.startsWith("NPC_")) return "NPC";
         if (filename.startsWith("아이템_")) return "아이템";
@@ -2,10 +2,15 @@ package com.new_ai.controller;
 
 import com.new_ai.service.GameService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/game")
@@ -15,15 +20,16 @@ public class GameController {
     @Autowired
     private GameService gameService;
     
+    // Gemini 응답을 기다리는 동안 서블릿 스레드를 반환 (비동기 요청 처리)
     @PostMapping("/action")
-    public ResponseEntity<Map<String, Object>> processAction(@RequestBody Map<String, Object> request) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> processAction(@RequestBody Map<String, Object> request) {
         try {
             System.out.println("=== 게임 액션 요청 받음 ===");
             System.out.println("요청 데이터: " + request);
             
             if (request == null || request.isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", "요청 본문이 비어있습니다"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                        .body(Map.of("error", "요청 본문이 비어있습니다")));
             }
             
             // 액션 추출
@@ -42,21 +48,56 @@ public class GameController {
             
             if (action == null || action.trim().isEmpty()) {
                 System.out.println("에러: 액션이 비어있음");
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", "액션이 필요합니다"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                        .body(Map.of("error", "액션이 필요합니다")));
             }
             
-            Map<String, Object> result = gameService.processPlayerAction(action, gameState);
-            System.out.println("처리 결과: " + result);
-            
-            return ResponseEntity.ok(result);
+            return gameService.processPlayerActionAsync(action, gameState)
+                    .thenApply(result -> {
+                        System.out.println("처리 결과: " + result);
+                        return ResponseEntity.ok(result);
+                    });
             
         } catch (Exception e) {
             System.err.println("게임 액션 처리 오류: " + e.getMessage());
             e.printStackTrace();
-            return ResponseEntity.internalServerError()
-                    .body(Map.of("error", "게임 처리 중 오류: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError()
+                    .body(Map.of("error", "게임 처리 중 오류: " + e.getMessage())));
+        }
+    }
+    
+    // /action과 같은 요청, 응답 토큰은 "token" 이벤트로, 최종 게임 상태는 마지막 "state" 이벤트로 전송
+    @PostMapping(value = "/action/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, Object>>> processActionStream(@RequestBody Map<String, Object> request) {
+        String action = (String) request.get("action");
+        if (action == null || action.trim().isEmpty()) {
+            return Flux.just(ServerSentEvent.<Map<String, Object>>builder()
+                    .event("error")
+                    .data(Map.of("error", "액션이 필요합니다"))
+                    .build());
         }
+        Map<String, Object> gameState = (Map<String, Object>) request.getOrDefault("gameState",
+            Map.of(
+                "character", Map.of("name", "생존자", "hp", 25, "maxHp", 25),
+                "inventory", java.util.List.of(),
+                "location", "폐허 외곽",
+                "gameHistory", java.util.List.of()
+            )
+        );
+        
+        return gameService.streamPlayerAction(action, gameState)
+                .map(event -> {
+                    Map<String, Object> data = new HashMap<>(event);
+                    String type = (String) data.remove("type");
+                    return ServerSentEvent.<Map<String, Object>>builder().event(type).data(data).build();
+                })
+                .onErrorResume(e -> {
+                    System.err.println("게임 액션 스트리밍 오류: " + e.getMessage());
+                    return Flux.just(ServerSentEvent.<Map<String, Object>>builder()
+                            .event("error")
+                            .data(Map.of("error", "게임 처리 중 오류: " + e.getMessage()))
+                            .build());
+                });
     }
     
     @PostMapping("/start")
@@ -90,6 +131,9 @@ public class GameController {
                         "realTimeGame", true,
                         "characterManagement", true
                 ),
+                "pinnedQueries", gameService.getPinnedQueryStats(),
+                "llm", gameService.getLlmStats(),
+                "searchSingleFlight", gameService.getSearchSingleFlightStats(),
                 "timestamp", System.currentTimeMillis()
         );
         
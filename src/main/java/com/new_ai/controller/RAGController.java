@@ -1,10 +1,25 @@
 package com.new_ai.controller;
 
+import com.new_ai.service.AnswerCache;
+import com.new_ai.service.CachingEmbeddingModel;
+import com.new_ai.service.DocumentWriteCoalescer;
+import com.new_ai.service.LexicalSearch;
 import com.new_ai.service.LocalRAGService;
+import com.new_ai.service.QuantizedVectorSearch;
+import com.new_ai.service.RetrievalCache;
+import com.new_ai.service.RetrievalFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -15,6 +30,31 @@ public class RAGController {
     @Autowired
     private LocalRAGService ragService;
     
+    @Autowired(required = false)
+    private CachingEmbeddingModel cachingEmbeddingModel;
+    
+    @Autowired
+    private DocumentWriteCoalescer documentWriteCoalescer;
+    
+    @Autowired
+    private RetrievalCache retrievalCache;
+    
+    @Autowired
+    private AnswerCache answerCache;
+
+    @Autowired
+    private QuantizedVectorSearch quantizedVectorSearch;
+
+    @Autowired
+    private LexicalSearch lexicalSearch;
+
+    @Value("${rag.search.batch.max-queries:32}")
+    private int maxBatchQueries;
+
+    // 쿼리를 주지 않으면 게임 액션에서 자주 나오는 검색어로 측정
+    private static final List<String> DEFAULT_REPORT_QUERIES = List.of(
+            "닥터 리오 의료", "워커 바이러스", "무기 장비", "탐색 아이템", "뉴 에덴 캠프", "에버그린 농장");
+    
     @PostMapping("/search")
     public ResponseEntity<Map<String, Object>> search(@RequestBody Map<String, String> request) {
         try {
@@ -27,7 +67,10 @@ public class RAGController {
                         .body(Map.of("error", "Query cannot be empty"));
             }
             
-            String response = ragService.searchAndGenerate(query, worldType, sessionId);
+            // type, category, tags(쉼표 구분)는 선택 필터
+            RetrievalFilter filter = RetrievalFilter.of(worldType, request.get("type"),
+                    request.get("category"), request.get("tags"));
+            String response = ragService.searchAndGenerate(query, filter, sessionId);
             
             return ResponseEntity.ok(Map.of(
                     "response", response,
@@ -36,12 +79,115 @@ public class RAGController {
                     "timestamp", System.currentTimeMillis()
             ));
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Internal server error: " + e.getMessage()));
         }
     }
     
+    // /search와 같은 요청, 답변 조각은 "token" 이벤트로, 끝나면 "done" 이벤트 전송
+    @PostMapping(value = "/search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, Object>>> searchStream(@RequestBody Map<String, String> request) {
+        String query = request.get("query");
+        String worldType = request.getOrDefault("worldType", "all");
+        if (query == null || query.trim().isEmpty()) {
+            return Flux.just(ServerSentEvent.<Map<String, Object>>builder()
+                    .event("error")
+                    .data(Map.of("error", "Query cannot be empty"))
+                    .build());
+        }
+        
+        RetrievalFilter filter;
+        try {
+            filter = RetrievalFilter.of(worldType, request.get("type"),
+                    request.get("category"), request.get("tags"));
+        } catch (IllegalArgumentException e) {
+            return Flux.just(ServerSentEvent.<Map<String, Object>>builder()
+                    .event("error")
+                    .data(Map.of("error", e.getMessage()))
+                    .build());
+        }
+        return ragService.streamSearchAndGenerate(query, filter)
+                .map(text -> ServerSentEvent.<Map<String, Object>>builder()
+                        .event("token")
+                        .data(Map.of("text", text))
+                        .build())
+                .concatWith(Mono.fromSupplier(() -> ServerSentEvent.<Map<String, Object>>builder()
+                        .event("done")
+                        .data(Map.of(
+                                "query", query,
+                                "worldType", worldType,
+                                "timestamp", System.currentTimeMillis()))
+                        .build()))
+                .onErrorResume(e -> Flux.just(ServerSentEvent.<Map<String, Object>>builder()
+                        .event("error")
+                        .data(Map.of("error", "Internal server error: " + e.getMessage()))
+                        .build()));
+    }
+    
+    // 여러 질의의 관련 문서를 한 번에 검색 (임베딩 한 번 배치 호출, 검색은 병렬)
+    @PostMapping("/search-batch")
+    public ResponseEntity<Map<String, Object>> searchBatch(@RequestBody Map<String, Object> request) {
+        try {
+            if (!(request.get("queries") instanceof List<?> rawQueries) || rawQueries.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Queries cannot be empty"));
+            }
+            List<String> queries = rawQueries.stream().map(String::valueOf).toList();
+            if (queries.stream().anyMatch(query -> query.trim().isEmpty())) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Query cannot be empty"));
+            }
+            if (queries.size() > maxBatchQueries) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Too many queries (max " + maxBatchQueries + ")"));
+            }
+            
+            // 필터는 모든 질의에 공통 적용
+            String worldType = stringValue(request.get("worldType"), "all");
+            RetrievalFilter filter = RetrievalFilter.of(worldType, stringValue(request.get("type"), null),
+                    stringValue(request.get("category"), null), stringValue(request.get("tags"), null));
+            
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (LocalRAGService.SearchResult result : ragService.searchBatch(queries, filter)) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("query", result.query());
+                entry.put("documents", result.documents().stream().map(document -> {
+                    Map<String, Object> item = new HashMap<>();
+                    item.put("id", document.getId());
+                    item.put("content", document.getText());
+                    item.put("metadata", document.getMetadata());
+                    item.put("score", document.getScore());
+                    return item;
+                }).toList());
+                if (result.error() != null) {
+                    entry.put("error", result.error());
+                }
+                results.add(entry);
+            }
+            
+            return ResponseEntity.ok(Map.of(
+                    "results", results,
+                    "worldType", worldType,
+                    "timestamp", System.currentTimeMillis()
+            ));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Internal server error: " + e.getMessage()));
+        }
+    }
+    
+    private static String stringValue(Object value, String defaultValue) {
+        return value != null ? value.toString() : defaultValue;
+    }
+    
     @PostMapping("/document")
     public ResponseEntity<Map<String, Object>> addDocument(@RequestBody Map<String, Object> request) {
         System.out.println("=== Document Addition Request ===");
@@ -113,6 +259,9 @@ public class RAGController {
                     "timestamp", System.currentTimeMillis()
             ));
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             System.err.println("ERROR in simple search: " + e.getMessage());
             e.printStackTrace();
@@ -121,16 +270,46 @@ public class RAGController {
         }
     }
     
+    // 정확 검색 대비 float HNSW / halfvec / binary + 재정렬의 recall@k와 지연 시간, 인덱스 크기
+    @PostMapping("/quantization-report")
+    public ResponseEntity<Map<String, Object>> quantizationReport(@RequestBody(required = false) Map<String, Object> request) {
+        try {
+            Map<String, Object> body = request != null ? request : Map.of();
+            List<String> queries = body.get("queries") instanceof List<?> list && !list.isEmpty()
+                    ? list.stream().map(String::valueOf).toList()
+                    : DEFAULT_REPORT_QUERIES;
+            int topK = body.get("topK") instanceof Number number ? number.intValue() : 5;
+            List<Integer> rerankFactors = body.get("rerankFactors") instanceof List<?> list && !list.isEmpty()
+                    ? list.stream().map(value -> ((Number) value).intValue()).toList()
+                    : List.of(1, 2, 4, 8);
+            
+            return ResponseEntity.ok(quantizedVectorSearch.report(queries, topK, rerankFactors));
+            
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Quantization report failed: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getStatus() {
         try {
             int documentCount = ragService.getDocumentCount();
             
-            return ResponseEntity.ok(Map.of(
-                    "status", "healthy",
-                    "documentCount", documentCount,
-                    "timestamp", System.currentTimeMillis()
-            ));
+            Map<String, Object> status = new HashMap<>();
+            status.put("status", "healthy");
+            status.put("documentCount", documentCount);
+            if (cachingEmbeddingModel != null) {
+                status.put("embeddingCache", cachingEmbeddingModel.getStats());
+            }
+            status.put("documentWrites", documentWriteCoalescer.getStats());
+            status.put("retrievalCache", retrievalCache.getStats());
+            status.put("answerCache", answerCache.getStats());
+            status.put("answerSingleFlight", ragService.getSingleFlightStats());
+            status.put("lexicalIndex", lexicalSearch.getStats());
+            status.put("timestamp", System.currentTimeMillis());
+            
+            return ResponseEntity.ok(status);
             
         } catch (Exception e) {
             return ResponseEntity.ok(Map.of(
@@ -0,0 +1,247 @@
+package com.new_ai.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LLM 답변 캐시: 질의 임베딩의 코사인 유사도가 threshold 이상이고 검색된 문서 집합이 같으면 이전 답변 재사용
+// ("닥터 리오는 누구야?" / "닥터 리오에 대해 알려줘"처럼 같은 문서로 답하는 바꿔 말한 질문)
+@Component
+public class AnswerCache {
+
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Value("${rag.answer-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rag.answer-cache.similarity-threshold:0.92}")
+    private double similarityThreshold;
+
+    @Value("${rag.answer-cache.ttl-seconds:1800}")
+    private long ttlSeconds;
+
+    // lookup 결과: 미스여도 put에서 그대로 사용 (embedding은 비교할 후보가 있었을 때만 계산됨)
+    public record Lookup(String answer, String query, float[] embedding, RetrievalFilter filter,
+                         Set<String> documentIds, long generation) {
+    }
+
+    // embedding은 처음 비교할 때 계산해서 채움 (null이면 아직 계산 안 됨)
+    private record Entry(String query, float[] embedding, RetrievalFilter filter, Set<String> documentIds,
+                         String answer, long expiresAtNanos) {
+
+        Entry withEmbedding(float[] embedding) {
+            return new Entry(query, embedding, filter, documentIds, answer, expiresAtNanos);
+        }
+    }
+
+    private final Map<Long, Entry> entries;
+    private final AtomicLong nextId = new AtomicLong();
+    // 문서 변경이 있을 때마다 증가 (답변 생성 중에 변경이 있었으면 캐시에 넣지 않음)
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AnswerCache(@Value("${rag.answer-cache.max-entries:500}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 같은 필터와 같은 문서 집합으로 만든 답변만 후보: 정규화한 질의가 같으면 바로 히트,
+    // 아니면 그때만 임베딩을 계산해 유사도 비교 (후보가 없으면 임베딩 호출 없이 미스)
+    public Lookup lookup(String query, RetrievalFilter filter, List<Document> documents) {
+        long searchGeneration = generation.get();
+        String normalized = normalize(query);
+        Set<String> documentIds = new HashSet<>();
+        documents.forEach(document -> documentIds.add(document.getId()));
+
+        if (!enabled) {
+            return new Lookup(null, normalized, null, filter, documentIds, searchGeneration);
+        }
+
+        Map<Long, Entry> candidates = new LinkedHashMap<>();
+        synchronized (entries) {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Entry> candidate = iterator.next();
+                Entry entry = candidate.getValue();
+                if (entry.expiresAtNanos() - now <= 0) {
+                    iterator.remove();
+                    continue;
+                }
+                if (entry.filter().equals(filter) && entry.documentIds().equals(documentIds)) {
+                    candidates.put(candidate.getKey(), entry);
+                }
+            }
+            for (Map.Entry<Long, Entry> candidate : candidates.entrySet()) {
+                if (candidate.getValue().query().equals(normalized)) {
+                    hits.incrementAndGet();
+                    entries.get(candidate.getKey()); // LRU 순서 갱신
+                    return new Lookup(candidate.getValue().answer(), normalized, candidate.getValue().embedding(),
+                            filter, documentIds, searchGeneration);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            misses.incrementAndGet();
+            return new Lookup(null, normalized, null, filter, documentIds, searchGeneration);
+        }
+
+        // 질의 + 아직 임베딩이 없는 후보 질의를 한 번에 임베딩
+        List<Long> pending = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        texts.add(normalized);
+        candidates.forEach((id, entry) -> {
+            if (entry.embedding() == null) {
+                pending.add(id);
+                texts.add(entry.query());
+            }
+        });
+        List<float[]> embeddings;
+        try {
+            embeddings = embeddingModel.embed(texts);
+        } catch (Exception e) {
+            System.err.println("Answer cache lookup skipped: " + e.getMessage());
+            misses.incrementAndGet();
+            return new Lookup(null, normalized, null, filter, documentIds, searchGeneration);
+        }
+        float[] embedding = embeddings.get(0);
+
+        Long bestId = null;
+        double bestSimilarity = similarityThreshold;
+        synchronized (entries) {
+            for (int i = 0; i < pending.size(); i++) {
+                Entry entry = entries.get(pending.get(i));
+                if (entry != null) {
+                    entries.put(pending.get(i), entry.withEmbedding(embeddings.get(i + 1)));
+                }
+            }
+            for (Long id : candidates.keySet()) {
+                Entry entry = entries.get(id);
+                if (entry == null || entry.embedding() == null) {
+                    continue;
+                }
+                double similarity = cosineSimilarity(embedding, entry.embedding());
+                if (similarity >= bestSimilarity) {
+                    bestSimilarity = similarity;
+                    bestId = id;
+                }
+            }
+            if (bestId != null) {
+                hits.incrementAndGet();
+                entries.get(bestId); // LRU 순서 갱신
+                return new Lookup(entries.get(bestId).answer(), normalized, embedding, filter, documentIds, searchGeneration);
+            }
+        }
+        misses.incrementAndGet();
+        return new Lookup(null, normalized, embedding, filter, documentIds, searchGeneration);
+    }
+
+    public void put(Lookup lookup, String answer) {
+        if (!enabled || answer == null || answer.isBlank()) {
+            return;
+        }
+        synchronized (entries) {
+            if (generation.get() != lookup.generation()) {
+                return;
+            }
+            long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds);
+            entries.put(nextId.incrementAndGet(), new Entry(lookup.query(), lookup.embedding(), lookup.filter(),
+                    Set.copyOf(lookup.documentIds()), answer, expiresAt));
+        }
+    }
+
+    private static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // 추가된 문서가 검색되면 문서 집합이 달라져 자연히 미스가 되므로,
+    // 같은 id로 다시 저장된 문서와 삭제된 문서를 근거로 한 답변만 지움
+    @EventListener
+    public void onDocumentsChanged(DocumentsChangedEvent event) {
+        generation.incrementAndGet();
+
+        synchronized (entries) {
+            if (entries.isEmpty()) {
+                return;
+            }
+            if (event.isAllChanged()) {
+                clear();
+                return;
+            }
+            Set<String> changed = new HashSet<>(event.getRemovedIds());
+            event.getAdded().forEach(document -> changed.add(document.getId()));
+
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Set<String> documentIds = iterator.next().documentIds();
+                if (changed.stream().anyMatch(documentIds::contains)) {
+                    iterator.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static double cosineSimilarity(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA > 0 && normB > 0 ? dot / Math.sqrt(normA * normB) : 0;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hit = hits.get();
+        long miss = misses.get();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("enabled", enabled);
+        stats.put("similarityThreshold", similarityThreshold);
+        stats.put("hits", hit);
+        stats.put("misses", miss);
+        stats.put("invalidations", invalidations.get());
+        stats.put("hitRate", hit + miss > 0 ? (double) hit / (hit + miss) : 0.0);
+        return stats;
+    }
+}
@@ -0,0 +1,311 @@
+package com.new_ai.service;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+// 청크 본문에 대한 메모리 내 BM25 역색인
+// 한글/한자는 글자 n-gram(기본 2글자)으로, 그 외 영문/숫자는 단어 단위로 색인 (조사가 붙어도 "닥터", "리오"가 그대로 일치)
+public class Bm25Index {
+
+    // BM25 점수는 코사인 유사도와 범위가 달라 Document.score에 넣지 않고 이 메타데이터 키로 전달
+    public static final String SCORE_KEY = "bm25_score";
+
+    private final int ngram;
+    private final double k1;
+    private final double b;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 단어 -> (슬롯, 출현 횟수) 목록. 삭제 시 마지막 항목과 자리를 바꿔 제거
+    private static final class Postings {
+        int[] slots = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        void add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final List<Document> slots = new ArrayList<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int[] lengths = new int[1024];
+    private long totalLength;
+
+    public Bm25Index(int ngram, double k1, double b) {
+        if (ngram <= 0) {
+            throw new IllegalArgumentException("ngram must be positive: " + ngram);
+        }
+        this.ngram = ngram;
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    public void add(Collection<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            for (Document document : documents) {
+                if (slotsById.containsKey(document.getId())) {
+                    removeLocked(document.getId());
+                }
+                String text = document.getText();
+                Map<String, Integer> frequencies = termFrequencies(text == null ? "" : text);
+
+                int slot = freeSlots.isEmpty() ? slots.size() : freeSlots.poll();
+                if (slot == slots.size()) {
+                    slots.add(document);
+                } else {
+                    slots.set(slot, document);
+                }
+                if (slot >= lengths.length) {
+                    lengths = Arrays.copyOf(lengths, Math.max(lengths.length * 2, slot + 1));
+                }
+                slotsById.put(document.getId(), slot);
+
+                int length = 0;
+                for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                    postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(slot, entry.getValue());
+                    length += entry.getValue();
+                }
+                lengths[slot] = length;
+                totalLength += length;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                removeLocked(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(String id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        String text = slots.get(slot).getText();
+        for (String term : termFrequencies(text == null ? "" : text).keySet()) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                list.remove(slot);
+                if (list.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= lengths[slot];
+        lengths[slot] = 0;
+        slots.set(slot, null);
+        freeSlots.add(slot);
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            slots.clear();
+            slotsById.clear();
+            freeSlots.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Document> search(String query, int topK, double minTermMatch, Predicate<Map<String, Object>> filter) {
+        return search(query, topK, minTermMatch, Set.of(), filter);
+    }
+
+    // requiredTerms: 결과 문서에 모두 들어 있어야 하는 단어 (엔티티 이름 등)
+    // minTermMatch: 질의 단어 중 문서에 들어 있어야 하는 비율 (한두 글자만 겹친 문서 제외)
+    public List<Document> search(String query, int topK, double minTermMatch, Set<String> requiredTerms,
+                                 Predicate<Map<String, Object>> filter) {
+        Set<String> terms = termFrequencies(query).keySet();
+        if (terms.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = slotsById.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+
+            double[] scores = new double[slots.size()];
+            int[] matched = new int[slots.size()];
+            int[] required = new int[slots.size()];
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - list.size + 0.5) / (list.size + 0.5));
+                boolean isRequired = requiredTerms.contains(term);
+                for (int i = 0; i < list.size; i++) {
+                    int slot = list.slots[i];
+                    int frequency = list.frequencies[i];
+                    double norm = k1 * (1 - b + b * lengths[slot] / averageLength);
+                    scores[slot] += idf * frequency * (k1 + 1) / (frequency + norm);
+                    matched[slot]++;
+                    if (isRequired) {
+                        required[slot]++;
+                    }
+                }
+            }
+            for (String term : requiredTerms) {
+                if (!postings.containsKey(term)) {
+                    return List.of();
+                }
+            }
+
+            int minMatched = Math.max(1, (int) Math.ceil(minTermMatch * terms.size()));
+            PriorityQueue<Integer> heap = new PriorityQueue<>(topK + 1,
+                    Comparator.comparingDouble((Integer slot) -> scores[slot]));
+            for (int slot = 0; slot < scores.length; slot++) {
+                if (matched[slot] < minMatched || required[slot] < requiredTerms.size()) {
+                    continue;
+                }
+                if (heap.size() == topK && scores[slot] <= scores[heap.peek()]) {
+                    continue;
+                }
+                if (!filter.test(slots.get(slot).getMetadata())) {
+                    continue;
+                }
+                heap.add(slot);
+                if (heap.size() > topK) {
+                    heap.poll();
+                }
+            }
+
+            List<Document> results = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                int slot = heap.poll();
+                Document document = slots.get(slot);
+                Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+                metadata.put(SCORE_KEY, scores[slot]);
+                results.add(Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(metadata)
+                        .build());
+            }
+            Collections.reverse(results);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Document get(String id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsById.get(id);
+            return slot == null ? null : slots.get(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<String> terms(String text) {
+        return termFrequencies(text).keySet();
+    }
+
+    // 소문자로 바꾼 뒤 한글/한자 구간은 n-gram, 영문/숫자 구간은 단어 하나로 분리
+    Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int length = lower.length();
+        int start = 0;
+        while (start < length) {
+            int kind = kind(lower.charAt(start));
+            if (kind == 0) {
+                start++;
+                continue;
+            }
+            int end = start + 1;
+            while (end < length && kind(lower.charAt(end)) == kind) {
+                end++;
+            }
+            if (kind == 1 && end - start > ngram) {
+                for (int i = start; i + ngram <= end; i++) {
+                    frequencies.merge(lower.substring(i, i + ngram), 1, Integer::sum);
+                }
+            } else {
+                frequencies.merge(lower.substring(start, end), 1, Integer::sum);
+            }
+            start = end;
+        }
+        return frequencies;
+    }
+
+    // 0: 구분자, 1: 한글/한자, 2: 그 외 글자/숫자
+    private static int kind(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        if (script == Character.UnicodeScript.HANGUL || script == Character.UnicodeScript.HAN) {
+            return 1;
+        }
+        return Character.isLetterOrDigit(c) ? 2 : 0;
+    }
+}
@@ -0,0 +1,182 @@
+package com.new_ai.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.EmbeddingResponseMetadata;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 임베딩 결과를 (모델, 차원, 텍스트 해시) 기준으로 메모리 LRU + 디스크(mmap)에 캐시하는 decorator
+public class CachingEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private final EmbeddingModel delegate;
+    private final String modelName;
+    private final int dimensions;
+
+    private final Map<EmbeddingCacheKey, float[]> memoryCache;
+
+    private final Path diskPath;
+    private final int diskEntries;
+    private volatile EmbeddingDiskCache diskCache;
+    private volatile boolean diskDisabled;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, String modelName, int dimensions,
+                                 int memoryEntries, Path diskPath, int diskEntries) {
+        this.delegate = delegate;
+        this.modelName = modelName;
+        this.dimensions = dimensions;
+        this.diskPath = diskPath;
+        this.diskEntries = diskEntries;
+        this.diskDisabled = diskPath == null || diskEntries <= 0;
+        this.memoryCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<EmbeddingCacheKey, float[]> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        String model = request.getOptions() != null && request.getOptions().getModel() != null
+                ? request.getOptions().getModel() : modelName;
+
+        float[][] results = new float[texts.size()][];
+        EmbeddingCacheKey[] keys = new EmbeddingCacheKey[texts.size()];
+        List<Integer> missIndexes = new ArrayList<>();
+        List<String> missTexts = new ArrayList<>();
+
+        for (int i = 0; i < texts.size(); i++) {
+            keys[i] = EmbeddingCacheKey.of(model, dimensions, texts.get(i));
+            results[i] = lookup(keys[i]);
+            if (results[i] == null) {
+                missIndexes.add(i);
+                missTexts.add(texts.get(i));
+            }
+        }
+
+        EmbeddingResponseMetadata metadata = new EmbeddingResponseMetadata();
+        if (!missTexts.isEmpty()) {
+            // 캐시에 없는 텍스트만 모아서 한 번에 Ollama 호출
+            misses.addAndGet(missTexts.size());
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(missTexts, request.getOptions()));
+            metadata = response.getMetadata();
+
+            List<Embedding> embeddings = response.getResults();
+            for (int j = 0; j < embeddings.size(); j++) {
+                Embedding embedding = embeddings.get(j);
+                int missIndex = embedding.getIndex() != null ? embedding.getIndex() : j;
+                int i = missIndexes.get(missIndex);
+                results[i] = embedding.getOutput();
+                store(keys[i], results[i]);
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < results.length; i++) {
+            embeddings.add(new Embedding(results[i], i));
+        }
+        return new EmbeddingResponse(embeddings, metadata);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions > 0 ? dimensions : delegate.dimensions();
+    }
+
+    private float[] lookup(EmbeddingCacheKey key) {
+        synchronized (memoryCache) {
+            float[] cached = memoryCache.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        EmbeddingDiskCache disk = diskCache();
+        if (disk != null) {
+            float[] cached = disk.get(key);
+            if (cached != null) {
+                diskHits.incrementAndGet();
+                synchronized (memoryCache) {
+                    memoryCache.put(key, cached);
+                }
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    private void store(EmbeddingCacheKey key, float[] embedding) {
+        synchronized (memoryCache) {
+            memoryCache.put(key, embedding);
+        }
+        EmbeddingDiskCache disk = diskCache();
+        if (disk != null) {
+            disk.put(key, embedding);
+        }
+    }
+
+    // 디스크 캐시는 처음 사용할 때 연다 (열기에 실패하면 메모리 캐시만 사용)
+    private EmbeddingDiskCache diskCache() {
+        if (diskCache != null || diskDisabled) {
+            return diskCache;
+        }
+        synchronized (this) {
+            if (diskCache == null && !diskDisabled) {
+                try {
+                    diskCache = new EmbeddingDiskCache(diskPath, dimensions, diskEntries);
+                    System.out.println("Embedding disk cache opened: " + diskPath + " (" + diskCache.size() + " entries)");
+                } catch (Exception e) {
+                    diskDisabled = true;
+                    System.err.println("Embedding disk cache disabled: " + e.getMessage());
+                }
+            }
+            return diskCache;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long memory = memoryHits.get();
+        long disk = diskHits.get();
+        long miss = misses.get();
+        long total = memory + disk + miss;
+
+        synchronized (memoryCache) {
+            stats.put("memoryEntries", memoryCache.size());
+        }
+        stats.put("diskEntries", diskCache != null ? diskCache.size() : 0);
+        stats.put("memoryHits", memory);
+        stats.put("diskHits", disk);
+        stats.put("misses", miss);
+        stats.put("hitRate", total > 0 ? (double) (memory + disk) / total : 0.0);
+        return stats;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (diskCache != null) {
+            diskCache.close();
+        }
+    }
+}
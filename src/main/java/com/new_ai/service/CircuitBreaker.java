@@ -0,0 +1,154 @@
+package com.new_ai.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// 최근 N개 호출의 실패율/지연 호출 비율로 열리는 circuit breaker
+// CLOSED -> (비율 초과) OPEN -> (open-duration 경과) HALF_OPEN -> 시험 호출이 모두 성공하면 CLOSED, 하나라도 실패하면 다시 OPEN
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallMillis;
+    private final long openMillis;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    // 슬라이딩 윈도우 (CLOSED 상태에서만 기록)
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSucceeded;
+
+    private long rejectedCalls;
+    private long openCount;
+
+    public CircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, double slowCallRateThreshold,
+                          long slowCallMillis, long openMillis, int halfOpenCalls, LongSupplier clock) {
+        this.failed = new boolean[Math.max(1, windowSize)];
+        this.slow = new boolean[failed.length];
+        this.minCalls = Math.max(1, Math.min(minCalls, failed.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.clock = clock;
+    }
+
+    // false면 호출하지 말고 바로 fallback
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openMillis) {
+                rejectedCalls++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenInFlight = 0;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= halfOpenCalls) {
+                rejectedCalls++;
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess(long latencyMillis) {
+        onResult(false, latencyMillis >= slowCallMillis);
+    }
+
+    public synchronized void onFailure() {
+        onResult(true, false);
+    }
+
+    // 결과 없이 끝난 호출 (호출한 쪽에서 취소한 경우)
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    private void onResult(boolean failure, boolean slowCall) {
+        if (state == State.OPEN) {
+            return; // 열리기 전에 시작된 호출
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight > 0) {
+                halfOpenInFlight--;
+            }
+            if (failure || slowCall) {
+                open();
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+
+        failed[next] = failure;
+        slow[next] = slowCall;
+        next = (next + 1) % failed.length;
+        recorded = Math.min(recorded + 1, failed.length);
+
+        if (recorded >= minCalls
+                && (rate(failed) >= failureRateThreshold || rate(slow) >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        openCount++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+    }
+
+    private double rate(boolean[] outcomes) {
+        if (recorded == 0) {
+            return 0.0;
+        }
+        int count = 0;
+        for (int i = 0; i < recorded; i++) {
+            if (outcomes[i]) {
+                count++;
+            }
+        }
+        return (double) count / recorded;
+    }
+
+    public synchronized State getState() {
+        // 표시용: 대기 시간이 지났으면 다음 호출에서 HALF_OPEN으로 전환됨
+        return state == State.OPEN && clock.getAsLong() - openedAt >= openMillis ? State.HALF_OPEN : state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("state", getState().name());
+        stats.put("bufferedCalls", recorded);
+        stats.put("failureRate", rate(failed));
+        stats.put("slowCallRate", rate(slow));
+        stats.put("rejectedCalls", rejectedCalls);
+        stats.put("openCount", openCount);
+        if (state == State.OPEN) {
+            stats.put("retryInMs", Math.max(0, openMillis - (clock.getAsLong() - openedAt)));
+        }
+        return stats;
+    }
+}
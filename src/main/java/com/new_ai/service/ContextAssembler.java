@@ -0,0 +1,223 @@
+package com.new_ai.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 검색된 청크로 LLM 프롬프트용 컨텍스트를 구성
+// 1. 같은 파일의 인접 청크(chunk_index 차이 1)는 겹치는 부분을 한 번만 넣어 하나로 합침
+// 2. MMR로 관련도 순위와 서로 다른 내용(글자 2-gram 기준)을 함께 고려해 순서를 정함
+// 3. 추정 토큰 수 예산 안에서 채우고, 마지막 구절은 문장 경계에서 자름
+@Component
+public class ContextAssembler {
+
+    // 청크 사이 겹침으로 인정하는 최소 길이 (우연히 같은 짧은 꼬리 제외)
+    private static final int MIN_OVERLAP = 20;
+    // 남은 예산이 이보다 작으면 잘라서라도 넣지 않음
+    private static final int MIN_PARTIAL_TOKENS = 40;
+    private static final String SEPARATOR = "\n\n";
+
+    private final double lambda;
+    private final int maxOverlap;
+
+    public ContextAssembler(@Value("${rag.context.mmr-lambda:0.7}") double lambda,
+                            @Value("${rag.document.chunk-overlap:200}") int chunkOverlap) {
+        this.lambda = lambda;
+        this.maxOverlap = chunkOverlap;
+    }
+
+    private record Passage(String title, String sourceFile, int firstChunk, int lastChunk, String text,
+                           double relevance, Set<String> shingles) {
+    }
+
+    public String assemble(List<Document> documents, int tokenBudget) {
+        List<Passage> passages = mergeNeighbours(documents);
+        List<Passage> ordered = diversify(passages);
+
+        StringBuilder context = new StringBuilder();
+        int remaining = tokenBudget;
+        for (Passage passage : ordered) {
+            String header = passage.title() != null ? "[" + passage.title() + "]\n" : "";
+            int cost = estimateTokens(header) + estimateTokens(passage.text()) + (context.length() > 0 ? 1 : 0);
+            String text = passage.text();
+            if (cost > remaining) {
+                int available = remaining - estimateTokens(header) - 1;
+                if (available < MIN_PARTIAL_TOKENS) {
+                    continue;
+                }
+                text = truncate(text, available);
+                cost = remaining;
+            }
+            if (context.length() > 0) {
+                context.append(SEPARATOR);
+            }
+            context.append(header).append(text);
+            remaining -= cost;
+            if (remaining < MIN_PARTIAL_TOKENS) {
+                break;
+            }
+        }
+        return context.toString();
+    }
+
+    private List<Passage> mergeNeighbours(List<Document> documents) {
+        // 검색 순위를 관련도로 사용 (벡터 점수와 BM25 점수가 섞여 있어 점수 자체는 비교할 수 없음)
+        List<Passage> passages = new ArrayList<>();
+        Set<String> seenTexts = new HashSet<>();
+        for (int rank = 0; rank < documents.size(); rank++) {
+            Document document = documents.get(rank);
+            String text = document.getText();
+            if (text == null || text.isBlank() || !seenTexts.add(text.trim())) {
+                continue;
+            }
+            Map<String, Object> metadata = document.getMetadata();
+            Object title = metadata.get("title");
+            Object sourceFile = metadata.get("source_file");
+            int chunkIndex = metadata.get("chunk_index") instanceof Number number ? number.intValue() : -1;
+            passages.add(new Passage(title != null ? title.toString() : null,
+                    sourceFile != null ? sourceFile.toString() : null, chunkIndex, chunkIndex, text.trim(),
+                    1.0 - (double) rank / documents.size(), null));
+        }
+
+        // 파일별로 chunk_index 순으로 정렬한 뒤 연속된 청크를 합침
+        Map<String, List<Passage>> bySource = new LinkedHashMap<>();
+        List<Passage> merged = new ArrayList<>();
+        for (Passage passage : passages) {
+            if (passage.sourceFile() == null || passage.firstChunk() < 0) {
+                merged.add(passage);
+            } else {
+                bySource.computeIfAbsent(passage.sourceFile(), key -> new ArrayList<>()).add(passage);
+            }
+        }
+        for (List<Passage> group : bySource.values()) {
+            group.sort(Comparator.comparingInt(Passage::firstChunk));
+            Passage current = group.get(0);
+            for (int i = 1; i < group.size(); i++) {
+                Passage next = group.get(i);
+                if (next.firstChunk() == current.lastChunk() + 1) {
+                    current = new Passage(current.title(), current.sourceFile(), current.firstChunk(), next.lastChunk(),
+                            join(current.text(), next.text()), Math.max(current.relevance(), next.relevance()), null);
+                } else if (next.firstChunk() != current.lastChunk()) {
+                    merged.add(current);
+                    current = next;
+                }
+            }
+            merged.add(current);
+        }
+
+        return merged.stream()
+                .map(passage -> new Passage(passage.title(), passage.sourceFile(), passage.firstChunk(),
+                        passage.lastChunk(), passage.text(), passage.relevance(), shingles(passage.text())))
+                .toList();
+    }
+
+    // 앞 청크의 꼬리와 뒤 청크의 머리가 같으면 그 부분을 한 번만 넣음
+    String join(String first, String second) {
+        int limit = Math.min(maxOverlap, Math.min(first.length(), second.length()));
+        for (int length = limit; length >= MIN_OVERLAP; length--) {
+            if (first.regionMatches(first.length() - length, second, 0, length)) {
+                return first + second.substring(length);
+            }
+        }
+        return first + "\n" + second;
+    }
+
+    private List<Passage> diversify(List<Passage> passages) {
+        List<Passage> remaining = new ArrayList<>(passages);
+        List<Passage> selected = new ArrayList<>(passages.size());
+        while (!remaining.isEmpty()) {
+            Passage best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Passage candidate : remaining) {
+                double redundancy = 0;
+                for (Passage chosen : selected) {
+                    redundancy = Math.max(redundancy, similarity(candidate.shingles(), chosen.shingles()));
+                }
+                double score = lambda * candidate.relevance() - (1 - lambda) * redundancy;
+                if (score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            selected.add(best);
+            remaining.remove(best);
+        }
+        return selected;
+    }
+
+    private static Set<String> shingles(String text) {
+        Set<String> shingles = new HashSet<>();
+        String compact = text.replaceAll("\\s+", " ");
+        for (int i = 0; i + 2 <= compact.length(); i++) {
+            shingles.add(compact.substring(i, i + 2));
+        }
+        return shingles;
+    }
+
+    private static double similarity(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int common = 0;
+        for (String shingle : smaller) {
+            if (larger.contains(shingle)) {
+                common++;
+            }
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+
+    // 한글 등 비ASCII 글자는 글자당 약 1토큰, ASCII는 4글자당 약 1토큰으로 추정
+    public static int estimateTokens(String text) {
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128) {
+                ascii++;
+            } else {
+                other++;
+            }
+        }
+        return other + (ascii + 3) / 4;
+    }
+
+    private static String truncate(String text, int tokenBudget) {
+        int end = 0;
+        int tokens = 0;
+        int ascii = 0;
+        while (end < text.length()) {
+            char c = text.charAt(end);
+            if (c < 128) {
+                ascii++;
+                if (ascii % 4 == 1) {
+                    tokens++;
+                }
+            } else {
+                tokens++;
+            }
+            // "..."이 붙을 자리로 1토큰 남김
+            if (tokens > tokenBudget - 1) {
+                break;
+            }
+            end++;
+        }
+        // 예산 안에서 마지막 문장 끝을 찾되 너무 많이 버리게 되면 그냥 자름
+        for (int i = end - 1; i > end / 2; i--) {
+            char c = text.charAt(i);
+            if (c == '.' || c == '!' || c == '?' || c == '\n' || c == '。') {
+                return text.substring(0, i + 1);
+            }
+        }
+        return text.substring(0, end) + "...";
+    }
+}
@@ -0,0 +1,126 @@
+package com.new_ai.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class DocumentChunker {
+
+    private final int chunkSize;
+    private final int overlap;
+
+    public DocumentChunker(@Value("${rag.document.chunk-size:1000}") int chunkSize,
+                           @Value("${rag.document.chunk-overlap:200}") int overlap) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("rag.document.chunk-size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.overlap = Math.max(0, Math.min(overlap, chunkSize / 2));
+    }
+
+    public List<String> chunk(Path filePath) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+            return chunk(reader);
+        }
+    }
+
+    public List<String> chunk(String content) {
+        try {
+            return chunk(new StringReader(content));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 입력을 한 번만 앞으로 읽으면서 청크를 만든다 (lastIndexOf 역방향 스캔 없음)
+    public List<String> chunk(Reader reader) throws IOException {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder window = new StringBuilder(chunkSize);
+        char[] buffer = new char[8192];
+
+        // window 안에서 마지막 문장 경계 바로 뒤 위치 (overlap 이후의 경계만 기록해 진행을 보장)
+        int lastBoundary = -1;
+        // 이전 청크에서 넘어온 overlap 길이 (이 부분만 남으면 새 청크를 만들지 않음)
+        int carried = 0;
+
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                window.append(c);
+
+                int length = window.length();
+                if (length > overlap && isBoundary(window, length - 1)) {
+                    lastBoundary = length;
+                }
+
+                if (length == chunkSize) {
+                    int cut = lastBoundary > 0 ? lastBoundary : chunkSize;
+                    addChunk(chunks, window, cut);
+
+                    window.delete(0, cut - overlap);
+                    carried = overlap;
+                    lastBoundary = findLastBoundary(window);
+                }
+            }
+        }
+
+        if (window.length() > carried || chunks.isEmpty()) {
+            addChunk(chunks, window, window.length());
+        }
+
+        return chunks;
+    }
+
+    private void addChunk(List<String> chunks, StringBuilder window, int end) {
+        String chunk = window.substring(0, end).trim();
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+    }
+
+    private int findLastBoundary(StringBuilder window) {
+        for (int i = window.length() - 1; i >= overlap; i--) {
+            if (isBoundary(window, i)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // 한국어 문장 끝: 문장부호, 줄바꿈, 그리고 구두점 없이 끝나는 "~다 " / "~요 " 형태
+    private static boolean isBoundary(CharSequence text, int index) {
+        char c = text.charAt(index);
+        switch (c) {
+            case '.', '!', '?', '\n', '。', '！', '？', '…':
+                return true;
+            case ' ', '\t':
+                if (index > 0) {
+                    char previous = text.charAt(index - 1);
+                    return previous == '다' || previous == '요';
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getOverlap() {
+        return overlap;
+    }
+}
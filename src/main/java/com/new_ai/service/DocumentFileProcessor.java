@@ -0,0 +1,66 @@
+package com.new_ai.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 문서 디렉토리의 .txt 파일 -> 청크 Document 목록 (DocumentLoader, DocumentProcessor, DocumentWatcher 공용)
+@Component
+public class DocumentFileProcessor implements IngestionPipeline.FileProcessor {
+
+    @Autowired
+    private DocumentChunker documentChunker;
+
+    @Autowired
+    private DocumentTagger documentTagger;
+
+    @Override
+    public List<Document> process(Path filePath) throws IOException {
+        String fileName = filePath.getFileName().toString();
+
+        // 문서 청킹 (파일 전체를 메모리에 올리지 않고 스트리밍)
+        List<String> chunks = documentChunker.chunk(filePath);
+
+        // 메타데이터 추출
+        Map<String, Object> metadata = extractMetadata(fileName, chunks);
+
+        // 각 청크를 Document로 변환
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            Map<String, Object> chunkMetadata = new HashMap<>(metadata);
+            chunkMetadata.put("chunk_index", i);
+            chunkMetadata.put("total_chunks", chunks.size());
+            chunkMetadata.put("source_file", fileName);
+
+            documents.add(new Document(chunks.get(i), chunkMetadata));
+        }
+
+        return documents;
+    }
+
+    private Map<String, Object> extractMetadata(String fileName, List<String> chunks) {
+        Map<String, Object> metadata = new HashMap<>();
+
+        // 파일명 규칙과 본문 키워드 태그 (tagging-rules.properties)
+        DocumentTagger.Tags tags = documentTagger.tag(fileName, chunks);
+        metadata.put("type", tags.type());
+        metadata.put("category", tags.category());
+
+        // 세계관 타입 (기본은 아포칼립스)
+        metadata.put("world_type", "apocalypse");
+
+        metadata.put("tags", tags.tags());
+        metadata.put("title", fileName.replace(".txt", ""));
+        metadata.put("created_at", new Date());
+
+        return metadata;
+    }
+}
@@ -0,0 +1,83 @@
+package com.new_ai.service;
+
+import com.new_ai.config.TaggingProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 파일명 규칙으로 type/category를, 키워드 오토마톤으로 태그를 한 번에 뽑는 공용 태거
+@Component
+public class DocumentTagger {
+
+    public record Tags(String type, String category, List<String> tags) {
+    }
+
+    private final List<TaggingProperties.TypeRule> typeRules;
+    private final String defaultType;
+    private final String defaultCategory;
+    private final List<String> tagNames;
+    private final KeywordAutomaton automaton;
+
+    public DocumentTagger(TaggingProperties properties) {
+        this.typeRules = List.copyOf(properties.getTypes());
+        this.defaultType = properties.getDefaultType();
+        this.defaultCategory = properties.getDefaultCategory();
+        this.tagNames = List.copyOf(properties.getKeywords().keySet());
+        this.automaton = new KeywordAutomaton(List.copyOf(properties.getKeywords().values()));
+    }
+
+    public Tags tag(String fileName, List<String> chunks) {
+        long found = 0L;
+        for (String chunk : chunks) {
+            found = automaton.match(chunk, found);
+        }
+
+        TaggingProperties.TypeRule rule = findTypeRule(fileName);
+        String type = rule != null ? rule.getType() : defaultType;
+        String category = rule != null ? rule.getCategory() : defaultCategory;
+        return new Tags(type, category, tagNames(found));
+    }
+
+    public List<String> tags(CharSequence text) {
+        return tagNames(automaton.match(text));
+    }
+
+    private List<String> tagNames(long found) {
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < tagNames.size(); i++) {
+            if ((found & (1L << i)) != 0) {
+                tags.add(tagNames.get(i));
+            }
+        }
+        return tags;
+    }
+
+    private TaggingProperties.TypeRule findTypeRule(String fileName) {
+        for (TaggingProperties.TypeRule rule : typeRules) {
+            if (startsWithAny(fileName, rule.getPrefixes())
+                    && (rule.getContains().isEmpty() || containsAny(fileName, rule.getContains()))) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWithAny(String fileName, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (fileName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny(String fileName, List<String> keywords) {
+        for (String keyword : keywords) {
+            if (fileName.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
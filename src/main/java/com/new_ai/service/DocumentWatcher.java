@@ -0,0 +1,238 @@
+package com.new_ai.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Component
+public class DocumentWatcher {
+    
+    @Autowired
+    private DocumentFileProcessor documentFileProcessor;
+    
+    @Autowired
+    private IngestionPipeline ingestionPipeline;
+    
+    @Autowired
+    private IngestionJobService ingestionJobService;
+    
+    @Value("${rag.document.watch.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${rag.document.watch.debounce-ms:2000}")
+    private long debounceMillis;
+    
+    @Value("${documents.path:C:\\Users\\PC\\Downloads\\RAG\\RAG}")
+    private String documentsPath;
+    
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final Set<Path> pendingFiles = new LinkedHashSet<>();
+    private final Set<Path> pendingDirectories = new LinkedHashSet<>();
+    private boolean rescanRequested = false;
+    
+    private WatchService watchService;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> pendingFlush;
+    private Path root;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        
+        root = Paths.get(documentsPath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            System.err.println("Document watcher disabled, directory does not exist: " + root);
+            return;
+        }
+        
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerRecursively(root);
+        } catch (IOException e) {
+            System.err.println("Document watcher failed to start: " + e.getMessage());
+            return;
+        }
+        
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "document-watcher-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        Thread watcherThread = new Thread(this::watchLoop, "document-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        
+        System.out.println("Watching documents directory: " + root + " (debounce " + debounceMillis + "ms)");
+    }
+    
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = watchedDirectories.get(key);
+                
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // 이벤트 유실 시 디렉토리 전체를 다시 확인 (변경 없는 파일은 manifest가 건너뜀)
+                        requestRescan();
+                        continue;
+                    }
+                    if (directory == null) {
+                        continue;
+                    }
+                    
+                    Path changed = directory.resolve((Path) event.context());
+                    if (changed.toString().endsWith(".txt")) {
+                        schedule(changed);
+                    } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                        // 새 디렉토리(이동해 온 디렉토리 포함)는 그 하위만 다시 확인
+                        try {
+                            registerRecursively(changed);
+                            scheduleDirectory(changed);
+                        } catch (IOException e) {
+                            // 등록 도중 삭제/이동된 경우 -> 감시는 계속하고 전체를 다시 확인
+                            System.err.println("Document watcher failed to register " + changed + ": " + e.getMessage());
+                            requestRescan();
+                        }
+                    } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        // 삭제된 경로가 디렉토리였는지는 알 수 없으므로 하위 파일 정리를 위해 ingest를 한 번 돌림
+                        scheduleDirectory(changed);
+                    }
+                }
+                
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // 종료 중
+        }
+    }
+    
+    private synchronized void schedule(Path file) {
+        pendingFiles.add(file);
+        rescheduleFlush();
+    }
+    
+    private synchronized void scheduleDirectory(Path directory) {
+        pendingDirectories.add(directory);
+        rescheduleFlush();
+    }
+    
+    private synchronized void requestRescan() {
+        rescanRequested = true;
+        rescheduleFlush();
+    }
+    
+    // 연속된 이벤트는 마지막 이벤트 이후 debounce 시간 동안 조용해지면 한 번에 처리
+    private void rescheduleFlush() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+        }
+        pendingFlush = scheduler.schedule(this::flush, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    private void flush() {
+        List<Path> files;
+        List<Path> directories;
+        boolean rescan;
+        synchronized (this) {
+            files = new ArrayList<>(pendingFiles);
+            directories = new ArrayList<>(pendingDirectories);
+            rescan = rescanRequested;
+            pendingFiles.clear();
+            pendingDirectories.clear();
+            rescanRequested = false;
+            pendingFlush = null;
+        }
+        
+        try {
+            if (rescan) {
+                files = listTextFiles(root);
+            } else {
+                // 삭제된 파일(삭제된 디렉토리 하위 포함)은 ingest 과정에서 manifest 기준으로 정리된다
+                Set<Path> existing = new LinkedHashSet<>();
+                files.stream().filter(Files::isRegularFile).forEach(existing::add);
+                for (Path directory : directories) {
+                    if (Files.isDirectory(directory)) {
+                        existing.addAll(listTextFiles(directory));
+                    }
+                }
+                files = new ArrayList<>(existing);
+            }
+        } catch (IOException e) {
+            System.err.println("Document watcher rescan failed: " + e.getMessage());
+            return;
+        }
+        
+        List<Path> changedFiles = files;
+        System.out.println("Re-indexing " + changedFiles.size() + " changed documents");
+        ingestionJobService.submit("watch", root.toString(),
+                stats -> ingestionPipeline.ingest(root, changedFiles, documentFileProcessor, stats));
+    }
+    
+    private static List<Path> listTextFiles(Path start) throws IOException {
+        try (Stream<Path> paths = Files.walk(start)) {
+            return paths.filter(Files::isRegularFile)
+                        .filter(path -> path.toString().endsWith(".txt"))
+                        .toList();
+        }
+    }
+    
+    private void registerRecursively(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    @PreDestroy
+    public void stop() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.new_ai.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 동시에 들어오는 단건 문서 추가를 짧은 시간/개수 창으로 모아 임베딩 1회 + 저장 1회로 처리
+// 각 호출자는 자기 문서가 저장된 뒤에 완료된다
+@Service
+public class DocumentWriteCoalescer {
+
+    @Autowired
+    private VectorStore vectorStore;
+
+    @Autowired
+    private PgVectorBulkWriter bulkWriter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${rag.write.coalesce.max-wait-ms:20}")
+    private long maxWaitMillis;
+
+    @Value("${rag.write.coalesce.max-batch:64}")
+    private int maxBatch;
+
+    private record PendingWrite(Document document, CompletableFuture<Void> future) {
+    }
+
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong documentsWritten = new AtomicLong();
+    private final AtomicLong batchesWritten = new AtomicLong();
+    private final AtomicLong documentsFailed = new AtomicLong();
+    private Thread writerThread;
+
+    @PostConstruct
+    public void start() {
+        writerThread = new Thread(this::writeLoop, "document-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public CompletableFuture<Void> submit(Document document) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        queue.add(new PendingWrite(document, future));
+        return future;
+    }
+
+    // 저장이 끝날 때까지 대기 (실패 시 원래 예외를 그대로 던짐)
+    public void add(Document document) {
+        try {
+            submit(document).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // 첫 문서가 들어온 시점부터 max-wait-ms 동안 또는 max-batch개가 될 때까지 모음
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 && queue.drainTo(batch, maxBatch - batch.size()) == 0) {
+                        break;
+                    }
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        queue.drainTo(batch, maxBatch - batch.size());
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            RuntimeException stopped = new IllegalStateException("Document writer stopped");
+            batch.forEach(pending -> pending.future().completeExceptionally(stopped));
+            queue.forEach(pending -> pending.future().completeExceptionally(stopped));
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        try {
+            List<Document> documents = batch.stream().map(PendingWrite::document).toList();
+            store(documents);
+            eventPublisher.publishEvent(DocumentsChangedEvent.added(this, documents));
+            batchesWritten.incrementAndGet();
+            documentsWritten.addAndGet(batch.size());
+            batch.forEach(pending -> pending.future().complete(null));
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                documentsFailed.incrementAndGet();
+                batch.get(0).future().completeExceptionally(e);
+                return;
+            }
+            // 배치 실패 시 문서별로 다시 시도해서 문제 있는 문서만 실패 처리
+            System.err.println("Coalesced write of " + batch.size() + " documents failed, retrying individually: " + e.getMessage());
+            for (PendingWrite pending : batch) {
+                write(List.of(pending));
+            }
+        }
+    }
+
+    private void store(List<Document> documents) {
+        if (bulkWriter.isEnabled()) {
+            bulkWriter.write(documents);
+        } else {
+            vectorStore.add(documents);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long batches = batchesWritten.get();
+        long documents = documentsWritten.get();
+        stats.put("documentsWritten", documents);
+        stats.put("batchesWritten", batches);
+        stats.put("documentsFailed", documentsFailed.get());
+        stats.put("averageBatchSize", batches > 0 ? (double) documents / batches : 0.0);
+        stats.put("pending", queue.size());
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writerThread != null) {
+            writerThread.interrupt();
+        }
+    }
+}
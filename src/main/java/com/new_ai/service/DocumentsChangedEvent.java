@@ -0,0 +1,47 @@
+package com.new_ai.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+// 벡터 저장소 내용이 바뀌었을 때 발행 (추가된 문서, 삭제된 id, 또는 전체 변경)
+public class DocumentsChangedEvent extends ApplicationEvent {
+
+    private final List<Document> added;
+    private final Collection<String> removedIds;
+    private final boolean allChanged;
+
+    private DocumentsChangedEvent(Object source, List<Document> added, Collection<String> removedIds, boolean allChanged) {
+        super(source);
+        this.added = added;
+        this.removedIds = removedIds;
+        this.allChanged = allChanged;
+    }
+
+    public static DocumentsChangedEvent added(Object source, List<Document> documents) {
+        return new DocumentsChangedEvent(source, List.copyOf(documents), List.of(), false);
+    }
+
+    public static DocumentsChangedEvent removed(Object source, Collection<String> ids) {
+        return new DocumentsChangedEvent(source, List.of(), List.copyOf(ids), false);
+    }
+
+    // 어떤 행이 바뀌었는지 알 수 없는 경우 (테이블 교체, 메타데이터 기준 삭제 등)
+    public static DocumentsChangedEvent all(Object source) {
+        return new DocumentsChangedEvent(source, List.of(), List.of(), true);
+    }
+
+    public List<Document> getAdded() {
+        return added;
+    }
+
+    public Collection<String> getRemovedIds() {
+        return removedIds;
+    }
+
+    public boolean isAllChanged() {
+        return allChanged;
+    }
+}
@@ -0,0 +1,26 @@
+package com.new_ai.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// (모델명, 차원 수, 텍스트)의 SHA-256 해시
+public record EmbeddingCacheKey(long a, long b, long c, long d) {
+
+    public static EmbeddingCacheKey of(String model, int dimensions, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(dimensions).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+            return new EmbeddingCacheKey(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.new_ai.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// 고정 크기 레코드([32바이트 키][dimensions * float])를 담는 memory-mapped 링 버퍼
+public class EmbeddingDiskCache implements AutoCloseable {
+
+    private static final int MAGIC = 0x454D4243; // "EMBC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int KEY_SIZE = 32;
+
+    private final Path path;
+    private final int dimensions;
+    private final int capacity;
+    private final int recordSize;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long writeCount;
+    private final Map<EmbeddingCacheKey, Integer> slots = new HashMap<>();
+
+    public EmbeddingDiskCache(Path path, int dimensions, int capacity) throws IOException {
+        this.path = path;
+        this.dimensions = dimensions;
+        this.recordSize = KEY_SIZE + dimensions * Float.BYTES;
+        this.capacity = (int) Math.min(capacity, (Integer.MAX_VALUE - HEADER_SIZE) / recordSize);
+        open();
+    }
+
+    private void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * recordSize);
+
+        boolean compatible = buffer.getInt(0) == MAGIC
+                && buffer.getInt(4) == VERSION
+                && buffer.getInt(8) == dimensions
+                && buffer.getInt(12) == capacity;
+
+        if (!compatible) {
+            // 차원 수나 용량이 바뀐 캐시 파일은 비우고 다시 시작
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, dimensions);
+            buffer.putInt(12, capacity);
+            buffer.putLong(16, 0L);
+            writeCount = 0;
+            return;
+        }
+
+        writeCount = buffer.getLong(16);
+        int used = (int) Math.min(writeCount, capacity);
+        for (int slot = 0; slot < used; slot++) {
+            slots.put(readKey(slot), slot);
+        }
+    }
+
+    public synchronized float[] get(EmbeddingCacheKey key) {
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            return null;
+        }
+        float[] embedding = new float[dimensions];
+        buffer.slice(recordOffset(slot) + KEY_SIZE, dimensions * Float.BYTES)
+                .asFloatBuffer()
+                .get(embedding);
+        return embedding;
+    }
+
+    public synchronized void put(EmbeddingCacheKey key, float[] embedding) {
+        if (embedding.length != dimensions || slots.containsKey(key)) {
+            return;
+        }
+
+        int slot = (int) (writeCount % capacity);
+        if (writeCount >= capacity) {
+            // 링 버퍼가 가득 찬 경우 가장 오래된 레코드를 덮어쓴다
+            slots.remove(readKey(slot));
+        }
+
+        int offset = recordOffset(slot);
+        ByteBuffer record = buffer.slice(offset, recordSize);
+        record.putLong(key.a()).putLong(key.b()).putLong(key.c()).putLong(key.d());
+        record.asFloatBuffer().put(embedding);
+
+        slots.put(key, slot);
+        writeCount++;
+        buffer.putLong(16, writeCount);
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    private EmbeddingCacheKey readKey(int slot) {
+        int offset = recordOffset(slot);
+        return new EmbeddingCacheKey(buffer.getLong(offset), buffer.getLong(offset + 8),
+                buffer.getLong(offset + 16), buffer.getLong(offset + 24));
+    }
+
+    private int recordOffset(int slot) {
+        return HEADER_SIZE + slot * recordSize;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+        }
+    }
+}
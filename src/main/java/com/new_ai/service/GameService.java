@@ -1,12 +1,31 @@
 package com.new_ai.service;
 
 import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class GameService {
@@ -17,8 +36,65 @@ public class GameService {
     @Autowired
     private GeminiService geminiService;
     
+    @Autowired
+    private HedgedLlmClient hedgedLlmClient;
+    
+    @Autowired
+    private LexicalSearch lexicalSearch;
+    
+    @Autowired
+    private ContextAssembler contextAssembler;
+    
+    @Autowired
+    private NeighbourChunkExpander neighbourChunkExpander;
+    
+    @Value("${rag.context.game-token-budget:250}")
+    private int gameContextTokenBudget;
+    
     private final Random random = new Random();
     
+    // VectorStore.similaritySearch(String) 기본값과 같은 개수
+    private static final int GAME_SEARCH_TOP_K = SearchRequest.DEFAULT_TOP_K;
+    
+    // 고정 검색어 -> 액션에 이 단어가 있으면 사용 (위에서부터 처음 일치하는 것)
+    private static final Map<String, List<String>> CANNED_QUERIES = new LinkedHashMap<>();
+    
+    static {
+        CANNED_QUERIES.put("닥터 리오 의료", List.of("닥터", "의사", "치료"));
+        CANNED_QUERIES.put("워커 바이러스", List.of("워커", "좀비", "감염"));
+        CANNED_QUERIES.put("무기 장비", List.of("무기", "총", "칼"));
+        CANNED_QUERIES.put("탐색 아이템", List.of("탐색", "수색", "찾"));
+        CANNED_QUERIES.put("뉴 에덴 캠프", List.of("캠프", "에덴"));
+        CANNED_QUERIES.put("에버그린 농장", List.of("농장", "에버그린"));
+    }
+    
+    // 고정 검색어의 검색 결과를 시작 시와 문서 변경 후 미리 계산해 메모리에 고정
+    @Value("${rag.game.pinned-queries.enabled:true}")
+    private boolean pinnedQueriesEnabled;
+    
+    // 적재 중에는 배치마다 변경 이벤트가 오므로 마지막 변경 후 이 시간이 지나면 다시 계산
+    @Value("${rag.game.pinned-queries.refresh-delay-ms:2000}")
+    private long pinnedRefreshDelayMillis;
+    
+    private final Map<String, List<Document>> pinnedResults = new ConcurrentHashMap<>();
+    // 계산 도중 문서가 바뀌면 그 결과는 고정하지 않음
+    private final AtomicLong pinnedGeneration = new AtomicLong();
+    private final AtomicLong pinnedHits = new AtomicLong();
+    // 여러 플레이어가 동시에 같은 검색어로 검색하면 한 번만 검색
+    private final SingleFlight<String, List<Document>> inFlightSearches = new SingleFlight<>();
+    private final ScheduledExecutorService pinnedRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-pinned-queries");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingRefresh;
+    
+    // 게임 액션 검색용 (동시 실행 수 = 임베딩/DB 커넥션 사용 상한)
+    @Value("${rag.game.search.max-concurrency:3}")
+    private int searchConcurrency;
+    
+    private ExecutorService searchExecutor;
+    
     public Map<String, Object> initializeGame(String characterName, String characterClass) {
         Map<String, Object> character = new HashMap<>();
         character.put("name", characterName);
@@ -45,16 +121,29 @@ public class GameService {
     }
     
     public Map<String, Object> processPlayerAction(String action, Map<String, Object> gameState) {
-        Map<String, Object> result = new HashMap<>();
-        
+        return processPlayerActionAsync(action, gameState).join();
+    }
+    
+    // 검색과 Gemini 응답을 기다리는 동안 호출 스레드를 점유하지 않음
+    // 고정 검색어에 없는 액션은 임베딩 + 벡터 검색(블로킹)이 필요하므로 검색 전용 풀에서 실행하고 이어서 LLM 호출
+    public CompletableFuture<Map<String, Object>> processPlayerActionAsync(String action, Map<String, Object> gameState) {
+        CompletableFuture<HedgedLlmClient.LlmAnswer> aiResponse;
         try {
-            // RAG에서 관련 정보 검색 (빠른 검색)
-            System.out.println("=== RAG 검색 시작 ===");
-            List<Document> relevantDocs = searchRelevantContent(action);
-            System.out.println("=== RAG 검색 완료: " + relevantDocs.size() + "개 문서 ===");
-            
-            // AI 응답 생성 (Gemini + fallback)
-            String aiResponse = generateAIResponse(action, relevantDocs, gameState);
+            aiResponse = CompletableFuture.supplyAsync(() -> {
+                        // RAG에서 관련 정보 검색
+                        System.out.println("=== RAG 검색 시작 ===");
+                        List<Document> relevantDocs = searchRelevantContent(action);
+                        System.out.println("=== RAG 검색 완료: " + relevantDocs.size() + "개 문서 ===");
+                        return relevantDocs;
+                    }, searchExecutor)
+                    // AI 응답 생성 (Gemini, 느리면 로컬 모델 헤징, 둘 다 실패하면 fallback)
+                    .thenCompose(relevantDocs -> generateAIResponseAsync(action, relevantDocs, gameState));
+        } catch (Exception e) {
+            aiResponse = CompletableFuture.failedFuture(e);
+        }
+        
+        return aiResponse.thenApply(response -> {
+            Map<String, Object> result = new HashMap<>();
             
             // 게임 상태 업데이트
             Map<String, Object> newGameState = updateGameState(action, gameState);
@@ -62,99 +151,227 @@ public class GameService {
             // 주사위 굴리기가 필요한지 판단
             Map<String, Object> diceRoll = checkForDiceRoll(action);
             
-            result.put("response", aiResponse);
+            result.put("response", response.text());
+            result.put("backend", response.backend());
             result.put("newGameState", newGameState);
             
             if (diceRoll != null) {
                 result.put("diceRoll", diceRoll);
             }
-            
-        } catch (Exception e) {
+            return result;
+        }).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
             System.err.println("=== GameService 오류 발생 ===");
-            System.err.println("오류 메시지: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("오류 메시지: " + cause.getMessage());
+            cause.printStackTrace();
+            Map<String, Object> result = new HashMap<>();
             result.put("response", "❌ 예상치 못한 일이 발생했습니다. 던전마스터가 상황을 정리하고 있습니다...");
-            result.put("error", e.getMessage());
-        }
-        
-        return result;
+            result.put("error", cause.getMessage());
+            return result;
+        });
+    }
+    
+    // 응답 토큰을 생성되는 대로 보내고, 마지막에 전체 응답과 게임 상태를 보냄
+    // 각 항목의 "type": token(text) / state(response, backend, newGameState, diceRoll)
+    public Flux<Map<String, Object>> streamPlayerAction(String action, Map<String, Object> gameState) {
+        return Flux.defer(() -> {
+            List<Document> relevantDocs = searchRelevantContent(action);
+            String ragContext = buildRagContext(relevantDocs);
+            
+            String[] backend = {HedgedLlmClient.BACKEND_GEMINI};
+            Flux<String> tokens;
+            if (geminiService.isApiKeyConfigured()) {
+                tokens = geminiService.streamGameResponse(action, ragContext, gameState)
+                        .onErrorResume(e -> {
+                            backend[0] = HedgedLlmClient.BACKEND_FALLBACK;
+                            return Flux.just(geminiService.generateSmartFallbackResponse(action, ragContext, gameState));
+                        });
+            } else {
+                backend[0] = HedgedLlmClient.BACKEND_FALLBACK;
+                tokens = Flux.just(generateFallbackResponse(action, relevantDocs));
+            }
+            
+            StringBuilder fullResponse = new StringBuilder();
+            Flux<Map<String, Object>> tokenEvents = tokens
+                    .doOnNext(fullResponse::append)
+                    .map(text -> Map.<String, Object>of("type", "token", "text", text));
+            
+            Mono<Map<String, Object>> stateEvent = Mono.fromSupplier(() -> {
+                Map<String, Object> result = new HashMap<>();
+                result.put("type", "state");
+                result.put("response", fullResponse.toString());
+                result.put("backend", backend[0]);
+                result.put("newGameState", updateGameState(action, gameState));
+                Map<String, Object> diceRoll = checkForDiceRoll(action);
+                if (diceRoll != null) {
+                    result.put("diceRoll", diceRoll);
+                }
+                return result;
+            });
+            return tokenEvents.concatWith(stateEvent);
+        }).subscribeOn(Schedulers.boundedElastic()); // RAG 검색은 블로킹 호출
     }
     
     private List<Document> searchRelevantContent(String action) {
         try {
             // 액션에서 키워드 추출
             String searchQuery = extractKeywords(action);
-            return vectorStore.similaritySearch(searchQuery);
+            
+            List<Document> pinned = pinnedResults.get(searchQuery);
+            if (pinned != null) {
+                pinnedHits.incrementAndGet();
+                return pinned;
+            }
+            return inFlightSearches.execute(searchQuery, () -> retrieve(searchQuery));
         } catch (Exception e) {
             System.err.println("RAG 검색 오류: " + e.getMessage());
             return new ArrayList<>();
         }
     }
     
-    private String extractKeywords(String action) {
-        // 간단한 키워드 추출 로직
-        action = action.toLowerCase();
+    private List<Document> retrieve(String searchQuery) {
+        // 설정한 경우 검색된 청크의 앞뒤 청크도 함께 (고정 결과에도 포함됨)
+        return neighbourChunkExpander.expand(searchIndexes(searchQuery));
+    }
+    
+    private List<Document> searchIndexes(String searchQuery) {
+        // "닥터 리오 의료"처럼 엔티티 이름이 들어간 키워드는 어휘 색인에서 바로 찾음
+        List<Document> entityDocs = lexicalSearch.entitySearch(searchQuery, RetrievalFilter.NONE, GAME_SEARCH_TOP_K);
+        if (!entityDocs.isEmpty()) {
+            return entityDocs;
+        }
         
-        if (action.contains("닥터") || action.contains("의사") || action.contains("치료")) {
-            return "닥터 리오 의료";
-        } else if (action.contains("워커") || action.contains("좀비") || action.contains("감염")) {
-            return "워커 바이러스";
-        } else if (action.contains("무기") || action.contains("총") || action.contains("칼")) {
-            return "무기 장비";
-        } else if (action.contains("탐색") || action.contains("수색") || action.contains("찾")) {
-            return "탐색 아이템";
-        } else if (action.contains("캠프") || action.contains("에덴")) {
-            return "뉴 에덴 캠프";
-        } else if (action.contains("농장") || action.contains("에버그린")) {
-            return "에버그린 농장";
-        } else {
-            return action; // 원본 액션으로 검색
+        List<Document> vectorDocs = vectorStore.similaritySearch(SearchRequest.builder()
+                .query(searchQuery)
+                .topK(GAME_SEARCH_TOP_K)
+                .build());
+        return lexicalSearch.fuse(vectorDocs,
+                lexicalSearch.search(searchQuery, RetrievalFilter.NONE, GAME_SEARCH_TOP_K), GAME_SEARCH_TOP_K);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        schedulePinnedRefresh(pinnedRefreshDelayMillis);
+    }
+    
+    // 바뀐 문서가 고정 결과에 영향을 줄 수 있으므로 바로 버리고 (실시간 검색으로 처리) 잠시 후 다시 계산
+    @EventListener
+    public void onDocumentsChanged(DocumentsChangedEvent event) {
+        synchronized (this) {
+            pinnedGeneration.incrementAndGet();
+            pinnedResults.clear();
+        }
+        schedulePinnedRefresh(pinnedRefreshDelayMillis);
+    }
+    
+    private synchronized void schedulePinnedRefresh(long delayMillis) {
+        if (!pinnedQueriesEnabled) {
+            return;
+        }
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(false);
         }
+        pendingRefresh = pinnedRefresher.schedule(this::refreshPinnedResults, delayMillis, TimeUnit.MILLISECONDS);
     }
     
-    private String generateAIResponse(String action, List<Document> relevantDocs, Map<String, Object> gameState) {
+    private void refreshPinnedResults() {
+        // 어휘 색인이 적재되는 중이면 실시간 검색과 같은 결과가 나오도록 적재 후 계산
+        if (lexicalSearch.isLoading()) {
+            schedulePinnedRefresh(1000);
+            return;
+        }
+        long generation = pinnedGeneration.get();
+        long start = System.currentTimeMillis();
+        Map<String, List<Document>> results = new HashMap<>();
         try {
-            // RAG 컨텍스트 준비
-            String ragContext = buildRagContext(relevantDocs);
-            
-            // Gemini API를 사용한 AI 응답 생성
-            if (geminiService.isApiKeyConfigured()) {
-                return geminiService.generateGameResponse(action, ragContext, gameState);
-            } else {
-                // Gemini API가 설정되지 않은 경우 fallback 응답
-                return generateFallbackResponse(action, relevantDocs);
+            for (String query : CANNED_QUERIES.keySet()) {
+                results.put(query, List.copyOf(retrieve(query)));
             }
-            
         } catch (Exception e) {
-            System.err.println("AI 응답 생성 오류: " + e.getMessage());
-            return generateFallbackResponse(action, relevantDocs);
+            System.err.println("Pinned game queries not refreshed, using live search: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            if (pinnedGeneration.get() == generation) {
+                pinnedResults.putAll(results);
+                System.out.println("Pinned " + results.size() + " game queries in " + (System.currentTimeMillis() - start) + "ms");
+            }
         }
     }
     
-    private String buildRagContext(List<Document> relevantDocs) {
-        if (relevantDocs.isEmpty()) {
-            return "";
-        }
+    public Map<String, Object> getLlmStats() {
+        Map<String, Object> stats = hedgedLlmClient.getStats();
+        stats.put("geminiCircuit", geminiService.getCircuitStats());
+        return stats;
+    }
+    
+    public Map<String, Object> getPinnedQueryStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", pinnedQueriesEnabled);
+        stats.put("pinned", pinnedResults.size());
+        stats.put("queries", CANNED_QUERIES.size());
+        stats.put("hits", pinnedHits.get());
+        return stats;
+    }
+    
+    public Map<String, Object> getSearchSingleFlightStats() {
+        return inFlightSearches.getStats();
+    }
+    
+    @PostConstruct
+    public void startSearchExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        searchExecutor = Executors.newFixedThreadPool(Math.max(1, searchConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "game-search-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void stopExecutors() {
+        pinnedRefresher.shutdownNow();
+        searchExecutor.shutdownNow();
+    }
+    
+    private String extractKeywords(String action) {
+        // 간단한 키워드 추출 로직
+        action = action.toLowerCase();
         
-        StringBuilder context = new StringBuilder();
-        for (int i = 0; i < Math.min(3, relevantDocs.size()); i++) {
-            Document doc = relevantDocs.get(i);
-            String content = doc.getContent();
-            
-            // 문서 메타데이터 추가
-            Map<String, Object> metadata = doc.getMetadata();
-            if (metadata.containsKey("title")) {
-                context.append("[").append(metadata.get("title")).append("]\n");
+        for (Map.Entry<String, List<String>> canned : CANNED_QUERIES.entrySet()) {
+            if (canned.getValue().stream().anyMatch(action::contains)) {
+                return canned.getKey();
             }
-            
-            // 내용 요약 (너무 길면 자르기)
-            if (content.length() > 300) {
-                content = content.substring(0, 300) + "...";
-            }
-            context.append(content).append("\n\n");
+        }
+        return action; // 원본 액션으로 검색
+    }
+    
+    private CompletableFuture<HedgedLlmClient.LlmAnswer> generateAIResponseAsync(String action, List<Document> relevantDocs, Map<String, Object> gameState) {
+        // RAG 컨텍스트 준비
+        String ragContext = buildRagContext(relevantDocs);
+        
+        // Gemini API가 설정되지 않은 경우 fallback 응답
+        if (!hedgedLlmClient.isAvailable()) {
+            hedgedLlmClient.recordFallback();
+            return CompletableFuture.completedFuture(new HedgedLlmClient.LlmAnswer(
+                    generateFallbackResponse(action, relevantDocs), HedgedLlmClient.BACKEND_FALLBACK));
         }
         
-        return context.toString();
+        // Gemini(+ 로컬 모델 헤징)로 AI 응답 생성, 모두 실패하면 Gemini 쪽 상황별 fallback
+        return hedgedLlmClient.generateGameResponse(action, ragContext, gameState)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    System.err.println("LLM 응답 실패 (fallback 사용): " + cause.getMessage());
+                    hedgedLlmClient.recordFallback();
+                    return new HedgedLlmClient.LlmAnswer(
+                            geminiService.generateSmartFallbackResponse(action, ragContext, gameState),
+                            HedgedLlmClient.BACKEND_FALLBACK);
+                });
+    }
+    
+    private String buildRagContext(List<Document> relevantDocs) {
+        // 인접 청크 병합 + 중복 제거 후 프롬프트 토큰 예산에 맞춰 구성
+        return contextAssembler.assemble(relevantDocs, gameContextTokenBudget);
     }
     
     private String generateFallbackResponse(String action, List<Document> relevantDocs) {
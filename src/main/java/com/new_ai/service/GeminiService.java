@@ -1,15 +1,28 @@
 package com.new_ai.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class GeminiService {
@@ -20,68 +33,296 @@ public class GeminiService {
     @Value("${gemini.api.url}")
     private String apiUrl;
     
+    // 비어 있으면 gemini.api.url의 :generateContent를 :streamGenerateContent로 바꿔 사용
+    @Value("${gemini.api.stream-url:}")
+    private String streamApiUrl;
+    
+    // 요청 타임아웃 = 최근 응답 시간 p99 x multiplier (min~max 범위), 샘플이 적을 때는 max
+    @Value("${gemini.timeout.min-ms:2000}")
+    private long minTimeoutMs;
+    
+    @Value("${gemini.timeout.max-ms:15000}")
+    private long maxTimeoutMs;
+    
+    @Value("${gemini.timeout.multiplier:3.0}")
+    private double timeoutMultiplier;
+    
+    @Value("${gemini.circuit.window-size:20}")
+    private int circuitWindowSize;
+    
+    @Value("${gemini.circuit.min-calls:5}")
+    private int circuitMinCalls;
+    
+    @Value("${gemini.circuit.failure-rate-threshold:0.5}")
+    private double circuitFailureRateThreshold;
+    
+    @Value("${gemini.circuit.slow-call-rate-threshold:0.8}")
+    private double circuitSlowCallRateThreshold;
+    
+    @Value("${gemini.circuit.slow-call-ms:8000}")
+    private long circuitSlowCallMs;
+    
+    @Value("${gemini.circuit.open-duration-ms:30000}")
+    private long circuitOpenDurationMs;
+    
+    @Value("${gemini.circuit.half-open-calls:2}")
+    private int circuitHalfOpenCalls;
+    
+    private CircuitBreaker circuitBreaker;
+    private final LatencyHistogram latency = new LatencyHistogram(200);
+    
+    // 요청 JSON 중 프롬프트를 제외한 앞뒤 부분은 고정이므로 한 번만 직렬화해 둠
+    // {"contents":[{"parts":[{"text": <prompt> }]}],"generationConfig":{...}}
+    private static final byte[] REQUEST_PREFIX = "{\"contents\":[{\"parts\":[{\"text\":".getBytes(StandardCharsets.UTF_8);
+    private final byte[] requestSuffix;
+    
+    // HTTP/2로 하나의 연결에서 여러 요청을 동시에 처리, 요청 스레드는 응답을 기다리며 묶여 있지 않음
     private final HttpClient httpClient;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WebClient webClient = WebClient.create();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    
+    // generateContent / streamGenerateContent 응답 중 사용하는 부분만
+    record GenerateContentResponse(List<Candidate> candidates) {
+        
+        String text() {
+            if (candidates == null || candidates.isEmpty() || candidates.get(0).content() == null
+                    || candidates.get(0).content().parts() == null) {
+                return "";
+            }
+            StringBuilder text = new StringBuilder();
+            for (Part part : candidates.get(0).content().parts()) {
+                if (part.text() != null) {
+                    text.append(part.text());
+                }
+            }
+            return text.toString();
+        }
+    }
+    
+    record Candidate(Content content, String finishReason) {
+    }
+    
+    record Content(List<Part> parts, String role) {
+    }
+    
+    record Part(String text) {
+    }
     
     public GeminiService() {
         this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
                 .connectTimeout(Duration.ofSeconds(5))
                 .build();
+        
+        // 생성 설정 - 빠른 응답을 위해 토큰 수 제한
+        Map<String, Object> generationConfig = new LinkedHashMap<>();
+        generationConfig.put("temperature", 0.7);
+        generationConfig.put("topP", 0.8);
+        generationConfig.put("maxOutputTokens", 300);
+        try {
+            this.requestSuffix = ("}]}],\"generationConfig\":" + objectMapper.writeValueAsString(generationConfig) + "}")
+                    .getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    @PostConstruct
+    public void initCircuitBreaker() {
+        circuitBreaker = new CircuitBreaker(circuitWindowSize, circuitMinCalls, circuitFailureRateThreshold,
+                circuitSlowCallRateThreshold, circuitSlowCallMs, circuitOpenDurationMs, circuitHalfOpenCalls,
+                System::currentTimeMillis);
     }
     
     public String generateGameResponse(String playerAction, String ragContext, Map<String, Object> gameState) {
-        // Gemini API 시도, 빠른 실패 시 fallback 사용
-        System.out.println("=== Gemini API 시도 (15초 타임아웃) ===");
+        // Gemini API 시도, 실패 시 fallback 사용
         try {
-            String prompt = buildGamePrompt(playerAction, ragContext, gameState);
-            System.out.println("=== 프롬프트: " + prompt.substring(0, Math.min(100, prompt.length())) + "... ===");
-            
-            Map<String, Object> requestBody = new HashMap<>();
-            
-            // Gemini API 요청 구조
-            Map<String, Object> content = new HashMap<>();
-            Map<String, Object> part = new HashMap<>();
-            part.put("text", prompt);
-            content.put("parts", List.of(part));
-            requestBody.put("contents", List.of(content));
-            
-            // 생성 설정 - 빠른 응답을 위해 토큰 수 제한
-            Map<String, Object> generationConfig = new HashMap<>();
-            generationConfig.put("temperature", 0.7);
-            generationConfig.put("topP", 0.8);
-            generationConfig.put("maxOutputTokens", 300);
-            requestBody.put("generationConfig", generationConfig);
-            
-            String requestJson = objectMapper.writeValueAsString(requestBody);
-            String url = apiUrl + "?key=" + apiKey;
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofSeconds(15))
+            return generateGameResponseAsync(playerAction, ragContext, gameState).join();
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.err.println("Gemini API 오류 (fallback 사용): " + cause.getMessage());
+            return generateSmartFallbackResponse(playerAction, ragContext, gameState);
+        }
+    }
+    
+    // 비동기 호출: HTTP 오류/타임아웃/빈 응답이면 예외로 완료 (fallback은 호출하는 쪽에서 결정)
+    // circuit이 열려 있으면 요청을 보내지 않고 바로 CircuitOpenException으로 완료
+    public CompletableFuture<String> generateGameResponseAsync(String playerAction, String ragContext, Map<String, Object> gameState) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CircuitOpenException());
+        }
+        String prompt = buildGamePrompt(playerAction, ragContext, gameState);
+        
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(apiUrl + "?key=" + apiKey))
+                    .timeout(Duration.ofMillis(requestTimeoutMillis()))
                     .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestJson))
+                    .POST(HttpRequest.BodyPublishers.ofByteArrays(requestParts(prompt)))
                     .build();
-            
-            System.out.println("=== HTTP 요청 전송 중... ===");
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            System.out.println("=== HTTP 응답 수신: " + response.statusCode() + " ===");
-            
-            if (response.statusCode() == 200) {
-                Map<String, Object> responseBody = objectMapper.readValue(response.body(), Map.class);
-                String result = extractResponseText(responseBody);
-                System.out.println("=== Gemini 응답: " + result.substring(0, Math.min(50, result.length())) + "... ===");
-                return result;
+        } catch (Exception e) {
+            circuitBreaker.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        long start = System.currentTimeMillis();
+        CompletableFuture<HttpResponse<byte[]>> exchange = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<String> result = exchange
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new GeminiException("HTTP " + response.statusCode() + ": "
+                                + new String(response.body(), StandardCharsets.UTF_8));
+                    }
+                    String text = parseResponse(response.body()).text();
+                    if (text.isEmpty()) {
+                        throw new GeminiException("Empty Gemini response");
+                    }
+                    System.out.println("=== Gemini 응답 (" + (System.currentTimeMillis() - start) + "ms): "
+                            + text.substring(0, Math.min(50, text.length())) + "... ===");
+                    return text;
+                });
+        result.whenComplete((text, e) -> {
+            long elapsed = System.currentTimeMillis() - start;
+            if (result.isCancelled()) {
+                // 호출한 쪽에서 취소하면 (헤징에서 진 경우 등) HTTP 요청도 중단, 성공/실패로 세지 않음
+                exchange.cancel(true);
+                circuitBreaker.release();
+            } else if (e == null) {
+                latency.record(elapsed);
+                circuitBreaker.onSuccess(elapsed);
             } else {
-                throw new RuntimeException("HTTP " + response.statusCode() + ": " + response.body());
+                circuitBreaker.onFailure();
             }
-            
+        });
+        return result;
+    }
+    
+    long requestTimeoutMillis() {
+        if (latency.size() < circuitMinCalls) {
+            return maxTimeoutMs;
+        }
+        long adaptive = (long) (latency.percentile(99) * timeoutMultiplier);
+        return Math.max(minTimeoutMs, Math.min(maxTimeoutMs, adaptive));
+    }
+    
+    public Map<String, Object> getCircuitStats() {
+        Map<String, Object> stats = circuitBreaker.getStats();
+        stats.put("timeoutMs", requestTimeoutMillis());
+        stats.put("p50Ms", latency.percentile(50));
+        stats.put("p99Ms", latency.percentile(99));
+        return stats;
+    }
+    
+    public static class GeminiException extends RuntimeException {
+        
+        public GeminiException(String message) {
+            super(message);
+        }
+    }
+    
+    public static class CircuitOpenException extends GeminiException {
+        
+        public CircuitOpenException() {
+            super("Gemini circuit open");
+        }
+    }
+    
+    // 토큰이 생성되는 대로 전달 (streamGenerateContent, SSE)
+    // 첫 토큰 전에 실패하면 오류로 끝나고, 도중에 끊기면 받은 데까지만 보냄
+    // circuit breaker에는 첫 토큰까지의 시간으로 기록
+    public Flux<String> streamGameResponse(String playerAction, String ragContext, Map<String, Object> gameState) {
+        AtomicBoolean emitted = new AtomicBoolean();
+        return Flux.defer(() -> {
+                    if (!circuitBreaker.tryAcquire()) {
+                        return Flux.error(new CircuitOpenException());
+                    }
+                    long start = System.currentTimeMillis();
+                    return webClient.post()
+                            .uri(streamUrl() + "?alt=sse&key=" + apiKey)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(requestBytes(buildGamePrompt(playerAction, ragContext, gameState)))
+                            .retrieve()
+                            .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() { })
+                            .timeout(Duration.ofMillis(requestTimeoutMillis()))
+                            .mapNotNull(ServerSentEvent::data)
+                            .map(this::extractStreamText)
+                            .filter(text -> !text.isEmpty())
+                            .doOnNext(text -> {
+                                if (emitted.compareAndSet(false, true)) {
+                                    circuitBreaker.onSuccess(System.currentTimeMillis() - start);
+                                }
+                            })
+                            .doOnError(e -> {
+                                if (!emitted.get()) {
+                                    circuitBreaker.onFailure();
+                                }
+                            })
+                            .doOnComplete(() -> {
+                                if (!emitted.get()) {
+                                    circuitBreaker.onFailure();
+                                }
+                            })
+                            .doOnCancel(() -> {
+                                if (!emitted.get()) {
+                                    circuitBreaker.release();
+                                }
+                            });
+                })
+                .onErrorResume(e -> {
+                    System.err.println("Gemini 스트리밍 오류: " + e.getMessage());
+                    // 첫 토큰 전에 실패한 경우만 오류 전달 (fallback은 호출하는 쪽에서 결정)
+                    return emitted.get() ? Flux.empty() : Flux.error(e);
+                });
+    }
+    
+    private String streamUrl() {
+        return streamApiUrl != null && !streamApiUrl.isBlank()
+                ? streamApiUrl
+                : apiUrl.replace(":generateContent", ":streamGenerateContent");
+    }
+    
+    // 스트리밍 응답의 각 이벤트는 generateContent 응답과 같은 구조
+    private String extractStreamText(String data) {
+        try {
+            return objectMapper.readValue(data, GenerateContentResponse.class).text();
         } catch (Exception e) {
-            System.err.println("Gemini API 오류 (fallback 사용): " + e.getMessage());
-            return generateSmartFallbackResponse(playerAction, ragContext, gameState);
+            System.err.println("스트리밍 응답 파싱 오류: " + e.getMessage());
+            return "";
+        }
+    }
+    
+    // Map 트리를 만들지 않고 바이트에서 바로 레코드로 읽음
+    GenerateContentResponse parseResponse(byte[] body) {
+        try {
+            return objectMapper.readValue(body, GenerateContentResponse.class);
+        } catch (IOException e) {
+            throw new GeminiException("응답 파싱 오류: " + e.getMessage());
+        }
+    }
+    
+    // 고정된 앞뒤 부분 + JSON 문자열로 이스케이프한 프롬프트
+    List<byte[]> requestParts(String prompt) {
+        try {
+            return List.of(REQUEST_PREFIX, objectMapper.writeValueAsBytes(prompt), requestSuffix);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+    
+    private byte[] requestBytes(String prompt) {
+        List<byte[]> parts = requestParts(prompt);
+        byte[] body = new byte[parts.stream().mapToInt(part -> part.length).sum()];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, body, offset, part.length);
+            offset += part.length;
         }
+        return body;
     }
     
-    private String buildGamePrompt(String playerAction, String ragContext, Map<String, Object> gameState) {
+    public String buildGamePrompt(String playerAction, String ragContext, Map<String, Object> gameState) {
         StringBuilder prompt = new StringBuilder();
         
         prompt.append("당신은 포스트 아포칼립스 TRPG 던전마스터입니다.\n\n");
@@ -98,8 +339,8 @@ public class GeminiService {
         }
         
         if (ragContext != null && !ragContext.trim().isEmpty()) {
-            String shortContext = ragContext.length() > 200 ? ragContext.substring(0, 200) + "..." : ragContext;
-            prompt.append("배경정보: ").append(shortContext).append("\n\n");
+            // ragContext는 GameService에서 이미 토큰 예산에 맞춰 구성됨
+            prompt.append("배경정보: ").append(ragContext).append("\n\n");
         }
         
         prompt.append("플레이어 행동: \"").append(playerAction).append("\"\n\n");
@@ -110,23 +351,7 @@ public class GeminiService {
         return prompt.toString();
     }
     
-    private String extractResponseText(Map<String, Object> responseBody) {
-        try {
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseBody.get("candidates");
-            if (candidates != null && !candidates.isEmpty()) {
-                Map<String, Object> content = (Map<String, Object>) candidates.get(0).get("content");
-                List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-                if (parts != null && !parts.isEmpty()) {
-                    return (String) parts.get(0).get("text");
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("응답 파싱 오류: " + e.getMessage());
-        }
-        return "던전마스터가 잠시 말을 잃었습니다... 다시 시도해주세요.";
-    }
-    
-    private String generateSmartFallbackResponse(String playerAction, String ragContext, Map<String, Object> gameState) {
+    public String generateSmartFallbackResponse(String playerAction, String ragContext, Map<String, Object> gameState) {
         StringBuilder response = new StringBuilder();
         String action = playerAction.toLowerCase();
         
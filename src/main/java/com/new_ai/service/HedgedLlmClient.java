@@ -0,0 +1,219 @@
+package com.new_ai.service;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Gemini가 최근 응답 시간의 p95 안에 답하지 않으면 로컬 Ollama ChatModel에도 같은 프롬프트를 보내고
+// 먼저 도착한 유효한 응답을 사용 (나머지 요청은 취소)
+@Service
+public class HedgedLlmClient {
+    
+    public static final String BACKEND_GEMINI = "gemini";
+    public static final String BACKEND_LOCAL = "ollama";
+    public static final String BACKEND_FALLBACK = "fallback";
+    
+    @Autowired
+    private GeminiService geminiService;
+    
+    @Autowired(required = false)
+    private ChatModel chatModel;
+    
+    @Value("${rag.llm.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+    
+    @Value("${rag.llm.hedge.percentile:95}")
+    private double hedgePercentile;
+    
+    // 샘플이 이만큼 모이기 전에는 initial-delay-ms 사용
+    @Value("${rag.llm.hedge.min-samples:20}")
+    private int minSamples;
+    
+    @Value("${rag.llm.hedge.initial-delay-ms:3000}")
+    private long initialDelayMs;
+    
+    @Value("${rag.llm.hedge.min-delay-ms:500}")
+    private long minDelayMs;
+    
+    @Value("${rag.llm.hedge.local-timeout-seconds:15}")
+    private long localTimeoutSeconds;
+    
+    private final LatencyHistogram geminiLatency = new LatencyHistogram(200);
+    private final AtomicLong hedgedCalls = new AtomicLong();
+    private final Map<String, AtomicLong> wins = new ConcurrentHashMap<>();
+    // 프롬프트가 완전히 같은 요청(같은 행동/상황/배경정보)은 진행 중인 한 번의 호출 결과를 함께 사용
+    private final SingleFlight<String, LlmAnswer> inFlight = new SingleFlight<>();
+    
+    public record LlmAnswer(String text, String backend) {
+    }
+    
+    public boolean isAvailable() {
+        return geminiService.isApiKeyConfigured();
+    }
+    
+    // 두 백엔드가 모두 실패하면 첫 번째 오류로 예외 완료 (fallback은 호출하는 쪽에서 결정)
+    public CompletableFuture<LlmAnswer> generateGameResponse(String playerAction, String ragContext, Map<String, Object> gameState) {
+        String prompt = geminiService.buildGamePrompt(playerAction, ragContext, gameState);
+        return inFlight.executeAsync(prompt, () -> generate(prompt, playerAction, ragContext, gameState));
+    }
+    
+    private CompletableFuture<LlmAnswer> generate(String prompt, String playerAction, String ragContext, Map<String, Object> gameState) {
+        long start = System.currentTimeMillis();
+        CompletableFuture<String> gemini = geminiService.generateGameResponseAsync(playerAction, ragContext, gameState);
+        gemini.whenComplete((text, e) -> {
+            // 헤징으로 취소된 요청도 "최소 이만큼 걸렸다"는 샘플로 남겨서 분위수가 낮게 치우치지 않도록 함
+            if (e == null || gemini.isCancelled()) {
+                geminiLatency.record(System.currentTimeMillis() - start);
+            }
+        });
+        
+        // circuit이 열려 있으면 로컬 모델도 기다리지 않고 바로 fallback
+        if (!hedgeEnabled || chatModel == null || gemini.isCompletedExceptionally()) {
+            return gemini.thenApply(text -> won(new LlmAnswer(text, BACKEND_GEMINI)));
+        }
+        
+        Race race = new Race(prompt);
+        race.register(gemini, BACKEND_GEMINI);
+        CompletableFuture.runAsync(race::hedge,
+                CompletableFuture.delayedExecutor(hedgeDelayMillis(), TimeUnit.MILLISECONDS));
+        return race.result.thenApply(this::won);
+    }
+    
+    long hedgeDelayMillis() {
+        if (geminiLatency.size() < minSamples) {
+            return initialDelayMs;
+        }
+        return Math.max(minDelayMs, geminiLatency.percentile(hedgePercentile));
+    }
+    
+    private LlmAnswer won(LlmAnswer answer) {
+        wins.computeIfAbsent(answer.backend(), backend -> new AtomicLong()).incrementAndGet();
+        return answer;
+    }
+    
+    public void recordFallback() {
+        wins.computeIfAbsent(BACKEND_FALLBACK, backend -> new AtomicLong()).incrementAndGet();
+    }
+    
+    private CompletableFuture<String> callLocal(String prompt) {
+        try {
+            // 스트리밍 구독을 future로 받아서 cancel 시 Ollama 요청도 끊기도록 함
+            return chatModel.stream(new Prompt(prompt))
+                    .mapNotNull(response -> response.getResult() != null
+                            ? response.getResult().getOutput().getContent() : null)
+                    .collect(Collectors.joining())
+                    .timeout(Duration.ofSeconds(localTimeoutSeconds))
+                    .toFuture();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    // 한 번의 요청에 대한 Gemini / 로컬 모델 경쟁 상태
+    private final class Race {
+        
+        private final CompletableFuture<LlmAnswer> result = new CompletableFuture<>();
+        private final List<CompletableFuture<String>> attempts = new ArrayList<>();
+        private final String prompt;
+        private int running = 1; // Gemini
+        private boolean localStarted;
+        private Throwable error;
+        
+        Race(String prompt) {
+            this.prompt = prompt;
+            result.whenComplete((answer, e) -> cancelAll());
+        }
+        
+        // Gemini가 p95 안에 답하지 않았거나 먼저 실패한 경우 로컬 모델 요청 시작
+        void hedge() {
+            synchronized (this) {
+                if (localStarted || result.isDone()) {
+                    return;
+                }
+                localStarted = true;
+                running++;
+            }
+            hedgedCalls.incrementAndGet();
+            System.out.println("=== Gemini 응답 지연/실패: 로컬 모델 요청 시작 ===");
+            register(callLocal(prompt), BACKEND_LOCAL);
+        }
+        
+        void register(CompletableFuture<String> attempt, String backend) {
+            boolean done;
+            synchronized (this) {
+                attempts.add(attempt);
+                done = result.isDone();
+            }
+            if (done) {
+                attempt.cancel(true);
+                return;
+            }
+            attempt.whenComplete((text, e) -> finish(backend, text, e));
+        }
+        
+        private void finish(String backend, String text, Throwable e) {
+            if (e == null && text != null && !text.isBlank()) {
+                result.complete(new LlmAnswer(text.trim(), backend));
+                return;
+            }
+            
+            boolean hedgeNow;
+            boolean exhausted;
+            synchronized (this) {
+                running--;
+                if (error == null && !(e instanceof CancellationException)) {
+                    error = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                }
+                hedgeNow = !localStarted;
+                exhausted = running == 0 && localStarted;
+            }
+            if (hedgeNow) {
+                // 기다릴 필요 없이 바로 로컬 모델로
+                hedge();
+            } else if (exhausted) {
+                result.completeExceptionally(error != null
+                        ? error : new GeminiService.GeminiException("Empty LLM response (" + backend + ")"));
+            }
+        }
+        
+        private void cancelAll() {
+            List<CompletableFuture<String>> running;
+            synchronized (this) {
+                running = new ArrayList<>(attempts);
+            }
+            for (CompletableFuture<String> attempt : running) {
+                attempt.cancel(true);
+            }
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hedgeEnabled", hedgeEnabled && chatModel != null);
+        stats.put("hedgeDelayMs", hedgeDelayMillis());
+        stats.put("geminiSamples", geminiLatency.size());
+        stats.put("geminiP50Ms", geminiLatency.percentile(50));
+        stats.put("geminiP95Ms", geminiLatency.percentile(95));
+        stats.put("hedgedCalls", hedgedCalls.get());
+        Map<String, Long> answeredBy = new HashMap<>();
+        wins.forEach((backend, count) -> answeredBy.put(backend, count.get()));
+        stats.put("answeredBy", answeredBy);
+        stats.put("singleFlight", inFlight.getStats());
+        return stats;
+    }
+}
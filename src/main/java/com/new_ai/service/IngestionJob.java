@@ -0,0 +1,117 @@
+package com.new_ai.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final String type;
+    private final String directoryPath;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested = false;
+    private volatile IngestionStats stats;
+    private volatile Future<?> future;
+
+    public IngestionJob(String id, String type, String directoryPath) {
+        this.id = id;
+        this.type = type;
+        this.directoryPath = directoryPath;
+    }
+
+    synchronized IngestionStats start() {
+        if (cancelRequested) {
+            return null;
+        }
+        stats = new IngestionStats(0);
+        status = Status.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return stats;
+    }
+
+    synchronized void complete() {
+        status = cancelRequested ? Status.CANCELLED : Status.COMPLETED;
+        finishedAt = System.currentTimeMillis();
+    }
+
+    synchronized void fail(Exception e) {
+        status = Status.FAILED;
+        error = e.getMessage();
+        finishedAt = System.currentTimeMillis();
+    }
+
+    synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        if (stats != null) {
+            stats.cancel();
+        } else {
+            // 아직 대기 중인 작업은 바로 취소 처리
+            status = Status.CANCELLED;
+            finishedAt = System.currentTimeMillis();
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+        return true;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("jobId", id);
+        map.put("type", type);
+        map.put("directoryPath", directoryPath);
+        map.put("status", status.name());
+        map.put("createdAt", createdAt);
+        if (startedAt > 0) {
+            map.put("startedAt", startedAt);
+        }
+        if (finishedAt > 0) {
+            map.put("finishedAt", finishedAt);
+        }
+        if (error != null) {
+            map.put("error", error);
+        }
+        IngestionStats current = stats;
+        if (current != null) {
+            map.put("progress", current.toMap());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,91 @@
+package com.new_ai.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Service
+public class IngestionJobService {
+
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    // 동시에 실행되는 적재 작업 수 제한 (나머지는 QUEUED 상태로 대기)
+    public IngestionJobService(@Value("${rag.ingest.max-concurrent-jobs:1}") int maxConcurrentJobs) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentJobs), runnable -> {
+            Thread thread = new Thread(runnable, "ingest-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public IngestionJob submit(String type, String directoryPath, Consumer<IngestionStats> task) {
+        pruneFinishedJobs();
+
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), type, directoryPath);
+        jobs.put(job.getId(), job);
+
+        job.setFuture(executor.submit(() -> {
+            IngestionStats stats = job.start();
+            if (stats == null) {
+                return;
+            }
+            System.out.println("=== 적재 작업 시작: " + job.getId() + " (" + type + ", " + directoryPath + ") ===");
+            try {
+                task.accept(stats);
+                job.complete();
+                System.out.println("=== 적재 작업 종료: " + job.getId() + " " + job.getStatus() + " - " + stats + " ===");
+            } catch (Exception e) {
+                job.fail(e);
+                System.err.println("적재 작업 실패: " + job.getId() + " - " + e.getMessage());
+            }
+        }));
+
+        return job;
+    }
+
+    public Optional<IngestionJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public List<IngestionJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparingLong(IngestionJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    public boolean cancel(String jobId) {
+        IngestionJob job = jobs.get(jobId);
+        return job != null && job.cancel();
+    }
+
+    private void pruneFinishedJobs() {
+        List<IngestionJob> finished = jobs.values().stream()
+                .filter(IngestionJob::isFinished)
+                .sorted(Comparator.comparingLong(IngestionJob::getFinishedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(IngestionJob::cancel);
+        executor.shutdownNow();
+    }
+}
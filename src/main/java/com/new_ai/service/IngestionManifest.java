@@ -0,0 +1,127 @@
+package com.new_ai.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class IngestionManifest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}")
+    private String vectorTableName;
+
+    private volatile boolean tableReady = false;
+
+    // 여러 문서 루트가 같은 테이블을 쓰므로 키는 절대 경로(source_path), source_file은 표시용
+    public record Entry(String sourceFile, String sourcePath, String contentHash, List<String> chunkIds) {
+    }
+
+    private void ensureTable() {
+        if (tableReady) {
+            return;
+        }
+        synchronized (this) {
+            if (!tableReady) {
+                jdbcTemplate.execute("""
+                        CREATE TABLE IF NOT EXISTS ingestion_manifest (
+                            source_path text PRIMARY KEY,
+                            source_file text NOT NULL,
+                            content_hash text NOT NULL,
+                            chunk_ids text[] NOT NULL,
+                            indexed_at timestamp NOT NULL DEFAULT now()
+                        )
+                        """);
+                tableReady = true;
+            }
+        }
+    }
+
+    public Map<String, Entry> loadEntries() {
+        ensureTable();
+        Map<String, Entry> entries = new HashMap<>();
+        jdbcTemplate.query("SELECT source_file, source_path, content_hash, chunk_ids FROM ingestion_manifest", rs -> {
+            Array array = rs.getArray("chunk_ids");
+            List<String> chunkIds = Arrays.asList((String[]) array.getArray());
+            Entry entry = new Entry(rs.getString("source_file"), rs.getString("source_path"),
+                    rs.getString("content_hash"), chunkIds);
+            entries.put(entry.sourcePath(), entry);
+        });
+        return entries;
+    }
+
+    public void record(String sourceFile, String sourcePath, String contentHash, List<String> chunkIds) {
+        ensureTable();
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    INSERT INTO ingestion_manifest (source_file, source_path, content_hash, chunk_ids, indexed_at)
+                    VALUES (?, ?, ?, ?, now())
+                    ON CONFLICT (source_path) DO UPDATE
+                    SET source_file = EXCLUDED.source_file, content_hash = EXCLUDED.content_hash,
+                        chunk_ids = EXCLUDED.chunk_ids, indexed_at = now()
+                    """);
+            ps.setString(1, sourceFile);
+            ps.setString(2, sourcePath);
+            ps.setString(3, contentHash);
+            ps.setArray(4, con.createArrayOf("text", chunkIds.toArray()));
+            return ps;
+        });
+    }
+
+    public void remove(String sourcePath) {
+        ensureTable();
+        jdbcTemplate.update("DELETE FROM ingestion_manifest WHERE source_path = ?", sourcePath);
+    }
+
+    // manifest에 없는 이 파일의 청크 정리 (source_path 기준)
+    // manifest 도입 이전에 적재된 청크는 source_path가 없으므로 파일명(source_file, 없으면 filename)으로 비교
+    public int purgeUntrackedChunks(String sourcePath, List<String> keepIds) {
+        String fileName = Paths.get(sourcePath).getFileName().toString();
+        return jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("DELETE FROM " + vectorTableName
+                    + " WHERE (metadata->>'source_path' = ?"
+                    + " OR (metadata->>'source_path' IS NULL"
+                    + " AND coalesce(metadata->>'source_file', metadata->>'filename') = ?))"
+                    + " AND NOT (id::text = ANY (?))");
+            ps.setString(1, sourcePath);
+            ps.setString(2, fileName);
+            ps.setArray(3, con.createArrayOf("text", keepIds.toArray()));
+            return ps;
+        });
+    }
+
+    public static String hash(Path filePath) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(filePath)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
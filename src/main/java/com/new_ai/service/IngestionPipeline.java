@@ -0,0 +1,460 @@
+package com.new_ai.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class IngestionPipeline {
+
+    @Autowired
+    private VectorStore vectorStore;
+
+    @Autowired
+    private IngestionManifest manifest;
+
+    @Autowired
+    private PgVectorBulkWriter bulkWriter;
+
+    @Autowired
+    private VectorIndexRebuilder indexRebuilder;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${rag.ingest.workers:4}")
+    private int workers;
+
+    @Value("${rag.ingest.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${rag.ingest.batch-size:32}")
+    private int batchSize;
+
+    @Value("${rag.ingest.incremental:true}")
+    private boolean incremental;
+
+    @Value("${rag.ingest.bulk-copy.batch-size:256}")
+    private int bulkBatchSize;
+
+    @Value("${rag.ingest.max-chunks-per-second:0}")
+    private double maxChunksPerSecond;
+
+    @FunctionalInterface
+    public interface FileProcessor {
+        List<Document> process(Path filePath) throws IOException;
+    }
+
+    private record PendingChunk(FileTask task, Document document) {
+    }
+
+    // 재적재 모드: 저장이 끝난 파일은 manifest에 바로 쓰지 않고 테이블 교체 후에 반영
+    private record Rebuild(Queue<FileTask> completed) {
+    }
+
+    public IngestionStats ingest(Path root, List<Path> files, FileProcessor processor) {
+        return ingest(root, files, processor, new IngestionStats(files.size()));
+    }
+
+    public IngestionStats ingest(Path root, List<Path> files, FileProcessor processor, IngestionStats stats) {
+        stats.setTotalFiles(files.size());
+        Path normalizedRoot = root.toAbsolutePath().normalize();
+        Map<String, IngestionManifest.Entry> entries = loadManifest();
+        if (entries != null) {
+            purgeDeletedFiles(normalizedRoot, entries, stats);
+        }
+
+        try {
+            load(normalizedRoot, files, processor, entries, null, stats);
+        } finally {
+            stats.finish();
+        }
+        return stats;
+    }
+
+    // 전체 재적재: 인덱스 없는 staging 테이블에 COPY로 적재 -> 인덱스를 한 번에 생성 -> 테이블 교체
+    // 교체 전까지 검색은 기존 테이블/인덱스를 그대로 사용
+    public IngestionStats rebuild(Path root, List<Path> files, FileProcessor processor, IngestionStats stats) {
+        if (!bulkWriter.isAvailable()) {
+            System.out.println("Index rebuild requires pgvector, falling back to incremental ingestion");
+            return ingest(root, files, processor, stats);
+        }
+
+        stats.setTotalFiles(files.size());
+        Path normalizedRoot = root.toAbsolutePath().normalize();
+        Map<String, IngestionManifest.Entry> entries = loadManifest();
+        Rebuild rebuild = new Rebuild(new ConcurrentLinkedQueue<>());
+
+        try {
+            indexRebuilder.createStagingTable();
+            load(normalizedRoot, files, processor, null, rebuild, stats);
+
+            if (stats.isCancelled() || stats.getFilesFailed() > 0 || stats.getChunksFailed() > 0) {
+                System.err.println("Index rebuild aborted, keeping the current table: " + stats);
+                indexRebuilder.dropStagingTable();
+                return stats;
+            }
+
+            // 이 디렉토리에서 이전에 적재된 청크는 새 적재분으로 대체 (나머지 행은 그대로 옮김)
+            Set<String> replacedIds = new HashSet<>();
+            Set<String> replacedSourcePaths = new HashSet<>();
+            Set<String> writtenIds = new HashSet<>();
+            List<IngestionManifest.Entry> removedEntries = new ArrayList<>();
+            if (entries != null) {
+                for (IngestionManifest.Entry entry : entries.values()) {
+                    if (Paths.get(entry.sourcePath()).startsWith(normalizedRoot)) {
+                        replacedIds.addAll(entry.chunkIds());
+                        replacedSourcePaths.add(entry.sourcePath());
+                        removedEntries.add(entry);
+                    }
+                }
+            }
+            for (FileTask task : rebuild.completed()) {
+                replacedSourcePaths.add(task.sourcePath);
+                writtenIds.addAll(task.newIds);
+            }
+
+            stats.setPhase("copying");
+            indexRebuilder.copyRetainedRows(replacedIds, replacedSourcePaths);
+            stats.setPhase("indexing");
+            indexRebuilder.buildIndex();
+            stats.setPhase("swapping");
+            indexRebuilder.swap(replacedIds, replacedSourcePaths, writtenIds);
+            eventPublisher.publishEvent(DocumentsChangedEvent.all(this));
+
+            updateManifestAfterRebuild(rebuild, removedEntries, stats);
+            stats.setPhase("done");
+            System.out.println("Index rebuild finished: " + stats);
+        } catch (RuntimeException e) {
+            try {
+                indexRebuilder.dropStagingTable();
+            } catch (Exception dropError) {
+                System.err.println("Error dropping staging table: " + dropError.getMessage());
+            }
+            throw new IllegalStateException("Index rebuild failed: " + e.getMessage(), e);
+        } finally {
+            stats.finish();
+        }
+        return stats;
+    }
+
+    private void updateManifestAfterRebuild(Rebuild rebuild, List<IngestionManifest.Entry> removedEntries,
+                                            IngestionStats stats) {
+        Set<String> rebuiltFiles = new HashSet<>();
+        for (FileTask task : rebuild.completed()) {
+            rebuiltFiles.add(task.sourcePath);
+        }
+        try {
+            for (IngestionManifest.Entry entry : removedEntries) {
+                if (!rebuiltFiles.contains(entry.sourcePath())) {
+                    manifest.remove(entry.sourcePath());
+                    stats.filePurged();
+                }
+            }
+            for (FileTask task : rebuild.completed()) {
+                manifest.record(task.sourceFile, task.sourcePath, task.contentHash, task.newIds);
+            }
+        } catch (Exception e) {
+            System.err.println("Error updating ingestion manifest after rebuild: " + e.getMessage());
+        }
+    }
+
+    private void load(Path root, List<Path> files, FileProcessor processor, Map<String, IngestionManifest.Entry> entries,
+                      Rebuild rebuild, IngestionStats stats) {
+        if (files.isEmpty()) {
+            return;
+        }
+
+        // 읽기/청킹 워커 -> 제한된 큐 -> 배치 임베딩/저장 (호출 스레드)
+        BlockingQueue<PendingChunk> queue = new ArrayBlockingQueue<>(queueCapacity);
+        CountDownLatch remainingFiles = new CountDownLatch(files.size());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, files.size()), workerThreadFactory());
+
+        try {
+            for (Path filePath : files) {
+                executor.submit(() -> {
+                    try {
+                        processFile(root, filePath, processor, entries, rebuild, queue, stats);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        stats.fileFailed(filePath.toString(), e);
+                        System.err.println("Error processing file " + filePath + ": " + e.getMessage());
+                    } finally {
+                        remainingFiles.countDown();
+                    }
+                });
+            }
+
+            writeBatches(queue, remainingFiles, rebuild, stats);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void processFile(Path root, Path filePath, FileProcessor processor,
+                             Map<String, IngestionManifest.Entry> entries, Rebuild rebuild,
+                             BlockingQueue<PendingChunk> queue, IngestionStats stats) throws Exception {
+        if (stats.isCancelled()) {
+            return;
+        }
+
+        String sourcePath = filePath.toAbsolutePath().normalize().toString();
+        String sourceFile = displayName(root, filePath);
+        String contentHash = IngestionManifest.hash(filePath);
+
+        IngestionManifest.Entry previous = entries != null ? entries.get(sourcePath) : null;
+        if (previous != null && previous.contentHash().equals(contentHash)) {
+            stats.fileSkipped();
+            return;
+        }
+
+        List<Document> documents = processor.process(filePath);
+        FileTask task = new FileTask(sourceFile, sourcePath, contentHash, previous, entries != null, rebuild);
+
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = withStableId(documents.get(i), sourceFile, sourcePath, contentHash, i);
+            task.newIds.add(document.getId());
+            // 큐가 가득 차면 writer가 따라올 때까지 대기 (backpressure)
+            queue.put(new PendingChunk(task, document));
+        }
+
+        stats.fileProcessed(sourceFile, documents.size());
+        System.out.println("Processed: " + sourceFile + " (" + documents.size() + " chunks)");
+        task.chunkingDone(documents.size());
+    }
+
+    // 표시용 이름: 문서 루트 기준 상대 경로 (하위 디렉토리의 같은 파일명을 구분)
+    private static String displayName(Path root, Path filePath) {
+        Path normalized = filePath.toAbsolutePath().normalize();
+        if (!normalized.startsWith(root)) {
+            return normalized.getFileName().toString();
+        }
+        return root.relativize(normalized).toString().replace('\\', '/');
+    }
+
+    // 절대 경로 + 내용 해시 + 청크 순번으로 결정되는 ID -> 재적재 시 중복 행 대신 upsert
+    // (여러 문서 루트에 같은 상대 경로가 있어도 ID가 겹치지 않음)
+    private Document withStableId(Document document, String sourceFile, String sourcePath, String contentHash,
+                                  int chunkIndex) {
+        Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+        metadata.put("source_file", sourceFile);
+        metadata.put("source_path", sourcePath);
+        String id = UUID.nameUUIDFromBytes((sourcePath + ":" + contentHash + ":" + chunkIndex)
+                .getBytes(StandardCharsets.UTF_8)).toString();
+        return new Document(id, document.getText(), metadata);
+    }
+
+    private void writeBatches(BlockingQueue<PendingChunk> queue, CountDownLatch remainingFiles,
+                              Rebuild rebuild, IngestionStats stats) throws InterruptedException {
+        // COPY 모드에서는 행 삽입 비용이 작으므로 더 큰 배치로 묶는다
+        boolean bulk = rebuild != null || bulkWriter.isEnabled();
+        int batchSize = bulk ? Math.max(this.batchSize, bulkBatchSize) : this.batchSize;
+        List<PendingChunk> batch = new ArrayList<>(batchSize);
+
+        while (remainingFiles.getCount() > 0 || !queue.isEmpty()) {
+            if (stats.isCancelled()) {
+                System.out.println("Ingestion cancelled, " + stats.getChunksWritten() + " chunks written");
+                return;
+            }
+
+            PendingChunk chunk = queue.poll(200, TimeUnit.MILLISECONDS);
+            if (chunk != null) {
+                batch.add(chunk);
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+
+            // 배치가 차거나 워커가 잠시 멈춘 경우 바로 flush
+            if (batch.size() >= batchSize || (chunk == null && !batch.isEmpty())) {
+                flush(batch, rebuild, stats);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            flush(batch, rebuild, stats);
+        }
+    }
+
+    private void flush(List<PendingChunk> batch, Rebuild rebuild, IngestionStats stats) {
+        List<Document> documents = batch.stream().map(PendingChunk::document).toList();
+        boolean success;
+        try {
+            if (rebuild != null) {
+                bulkWriter.write(documents, indexRebuilder.getStagingTable());
+            } else {
+                if (bulkWriter.isEnabled()) {
+                    bulkWriter.write(documents);
+                } else {
+                    vectorStore.add(documents);
+                }
+                eventPublisher.publishEvent(DocumentsChangedEvent.added(this, documents));
+            }
+            stats.batchWritten(documents.size());
+            success = true;
+        } catch (Exception e) {
+            // 배치 하나의 실패가 전체 적재를 멈추지 않도록 기록만 하고 계속 진행
+            stats.batchFailed(documents.size(), e);
+            System.err.println("Error adding batch of " + documents.size() + " chunks: " + e.getMessage());
+            success = false;
+        }
+
+        for (PendingChunk chunk : batch) {
+            chunk.task().chunkWritten(success);
+        }
+        batch.clear();
+        throttle(stats);
+    }
+
+    // 설정된 초당 청크 수를 넘지 않도록 배치 사이에 대기 (게임 트래픽과 임베딩 서버/커넥션 풀 공유)
+    private void throttle(IngestionStats stats) {
+        if (maxChunksPerSecond <= 0) {
+            return;
+        }
+        double targetSeconds = stats.getChunksWritten() / maxChunksPerSecond;
+        long sleepMillis = (long) ((targetSeconds - stats.getElapsedSeconds()) * 1000);
+        if (sleepMillis > 0) {
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Map<String, IngestionManifest.Entry> loadManifest() {
+        if (!incremental) {
+            return null;
+        }
+        try {
+            return manifest.loadEntries();
+        } catch (Exception e) {
+            System.err.println("Ingestion manifest unavailable, falling back to full load: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // 디렉토리에서 사라진 파일의 청크와 manifest 항목 제거
+    private void purgeDeletedFiles(Path normalizedRoot, Map<String, IngestionManifest.Entry> entries,
+                                   IngestionStats stats) {
+        for (IngestionManifest.Entry entry : entries.values()) {
+            Path sourcePath = Paths.get(entry.sourcePath());
+            if (!sourcePath.startsWith(normalizedRoot) || Files.exists(sourcePath)) {
+                continue;
+            }
+            try {
+                if (!entry.chunkIds().isEmpty()) {
+                    vectorStore.delete(entry.chunkIds());
+                    eventPublisher.publishEvent(DocumentsChangedEvent.removed(this, entry.chunkIds()));
+                }
+                manifest.remove(entry.sourcePath());
+                stats.filePurged();
+                System.out.println("Purged deleted file: " + entry.sourceFile() + " (" + entry.chunkIds().size() + " chunks)");
+            } catch (Exception e) {
+                System.err.println("Error purging deleted file " + entry.sourceFile() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private class FileTask {
+        private final String sourceFile;
+        private final String sourcePath;
+        private final String contentHash;
+        private final IngestionManifest.Entry previous;
+        private final boolean tracked;
+        private final Rebuild rebuild;
+        private final List<String> newIds = new ArrayList<>();
+
+        private int expected = -1;
+        private int written = 0;
+        private boolean failed = false;
+        private boolean finalized = false;
+
+        FileTask(String sourceFile, String sourcePath, String contentHash,
+                 IngestionManifest.Entry previous, boolean tracked, Rebuild rebuild) {
+            this.sourceFile = sourceFile;
+            this.sourcePath = sourcePath;
+            this.contentHash = contentHash;
+            this.previous = previous;
+            this.tracked = tracked;
+            this.rebuild = rebuild;
+        }
+
+        synchronized void chunkingDone(int chunkCount) {
+            expected = chunkCount;
+            tryFinalize();
+        }
+
+        synchronized void chunkWritten(boolean success) {
+            written++;
+            failed |= !success;
+            tryFinalize();
+        }
+
+        // 파일의 모든 청크가 저장된 뒤에만 이전 청크 삭제 + manifest 갱신
+        private void tryFinalize() {
+            if (finalized || !(tracked || rebuild != null) || expected < 0 || written < expected || failed) {
+                return;
+            }
+            finalized = true;
+            if (rebuild != null) {
+                rebuild.completed().add(this);
+                return;
+            }
+            try {
+                if (previous != null) {
+                    Set<String> keep = new HashSet<>(newIds);
+                    List<String> staleIds = previous.chunkIds().stream()
+                            .filter(id -> !keep.contains(id))
+                            .toList();
+                    if (!staleIds.isEmpty()) {
+                        vectorStore.delete(staleIds);
+                        eventPublisher.publishEvent(DocumentsChangedEvent.removed(IngestionPipeline.this, staleIds));
+                    }
+                } else if (manifest.purgeUntrackedChunks(sourcePath, newIds) > 0) {
+                    eventPublisher.publishEvent(DocumentsChangedEvent.all(IngestionPipeline.this));
+                }
+                manifest.record(sourceFile, sourcePath, contentHash, newIds);
+            } catch (Exception e) {
+                System.err.println("Error updating ingestion manifest for " + sourceFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "ingest-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,200 @@
+package com.new_ai.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class IngestionStats {
+
+    private static final int MAX_ERRORS = 50;
+
+    private volatile int totalFiles;
+    private volatile boolean cancelled = false;
+    private volatile String phase = "loading";
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos = -1;
+
+    private final AtomicLong filesProcessed = new AtomicLong();
+    private final AtomicLong filesFailed = new AtomicLong();
+    private final AtomicLong filesSkipped = new AtomicLong();
+    private final AtomicLong filesPurged = new AtomicLong();
+    private final AtomicLong chunksQueued = new AtomicLong();
+    private final AtomicLong chunksWritten = new AtomicLong();
+    private final AtomicLong chunksFailed = new AtomicLong();
+    private final AtomicLong batchesWritten = new AtomicLong();
+    private final AtomicLong batchesFailed = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+    private final List<String> processedFiles = new ArrayList<>();
+
+    public IngestionStats(int totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+
+    void setTotalFiles(int totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    void fileProcessed(String fileName, int chunkCount) {
+        filesProcessed.incrementAndGet();
+        chunksQueued.addAndGet(chunkCount);
+        synchronized (processedFiles) {
+            processedFiles.add(fileName);
+        }
+    }
+
+    void fileSkipped() {
+        filesSkipped.incrementAndGet();
+    }
+
+    void filePurged() {
+        filesPurged.incrementAndGet();
+    }
+
+    void fileFailed(String fileName, Exception e) {
+        filesFailed.incrementAndGet();
+        addError(fileName + ": " + e.getMessage());
+    }
+
+    void batchWritten(int size) {
+        batchesWritten.incrementAndGet();
+        chunksWritten.addAndGet(size);
+    }
+
+    void batchFailed(int size, Exception e) {
+        batchesFailed.incrementAndGet();
+        chunksFailed.addAndGet(size);
+        addError("batch of " + size + " chunks: " + e.getMessage());
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    private void addError(String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+
+    public int getTotalFiles() {
+        return totalFiles;
+    }
+
+    public long getFilesProcessed() {
+        return filesProcessed.get();
+    }
+
+    public long getFilesFailed() {
+        return filesFailed.get();
+    }
+
+    public long getFilesSkipped() {
+        return filesSkipped.get();
+    }
+
+    public long getFilesPurged() {
+        return filesPurged.get();
+    }
+
+    public List<String> getProcessedFiles() {
+        synchronized (processedFiles) {
+            return new ArrayList<>(processedFiles);
+        }
+    }
+
+    public long getChunksWritten() {
+        return chunksWritten.get();
+    }
+
+    public long getChunksFailed() {
+        return chunksFailed.get();
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public double getElapsedSeconds() {
+        long end = endNanos >= 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000_000.0;
+    }
+
+    public double getFilesPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return elapsed > 0 ? (filesProcessed.get() + filesFailed.get() + filesSkipped.get()) / elapsed : 0;
+    }
+
+    public double getChunksPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return elapsed > 0 ? chunksWritten.get() / elapsed : 0;
+    }
+
+    public boolean isFinished() {
+        return endNanos >= 0;
+    }
+
+    // 남은 파일 수 / 현재 처리 속도로 계산한 예상 남은 시간 (초), 계산 불가 시 -1
+    public double getEtaSeconds() {
+        if (isFinished()) {
+            return 0;
+        }
+        long done = filesProcessed.get() + filesFailed.get() + filesSkipped.get();
+        double rate = getFilesPerSecond();
+        if (rate <= 0 || totalFiles <= 0) {
+            return -1;
+        }
+        return Math.max(0, totalFiles - done) / rate;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("totalFiles", totalFiles);
+        map.put("filesProcessed", filesProcessed.get());
+        map.put("filesFailed", filesFailed.get());
+        map.put("filesSkipped", filesSkipped.get());
+        map.put("filesPurged", filesPurged.get());
+        map.put("chunksQueued", chunksQueued.get());
+        map.put("chunksWritten", chunksWritten.get());
+        map.put("chunksFailed", chunksFailed.get());
+        map.put("batchesWritten", batchesWritten.get());
+        map.put("batchesFailed", batchesFailed.get());
+        map.put("elapsedSeconds", getElapsedSeconds());
+        map.put("filesPerSecond", getFilesPerSecond());
+        map.put("chunksPerSecond", getChunksPerSecond());
+        map.put("etaSeconds", getEtaSeconds());
+        map.put("cancelled", cancelled);
+        map.put("phase", phase);
+        map.put("errors", getErrors());
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("files=%d/%d (failed %d, unchanged %d, purged %d), chunks=%d (failed %d), %.1fs, %.2f files/s, %.2f chunks/s",
+                filesProcessed.get(), totalFiles, filesFailed.get(), filesSkipped.get(), filesPurged.get(),
+                chunksWritten.get(), chunksFailed.get(),
+                getElapsedSeconds(), getFilesPerSecond(), getChunksPerSecond());
+    }
+}
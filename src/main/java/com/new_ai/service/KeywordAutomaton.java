@@ -0,0 +1,119 @@
+package com.new_ai.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+// 여러 키워드 그룹을 한 번에 찾는 Aho-Corasick 오토마톤 (그룹 하나당 결과 비트 하나, 최대 64개)
+public final class KeywordAutomaton {
+
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    private final long[] output;
+    private final long allGroups;
+
+    public KeywordAutomaton(List<List<String>> groups) {
+        if (groups.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " keyword groups are supported: " + groups.size());
+        }
+
+        // 1단계: 키워드 trie 구성
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Long> outputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        outputs.add(0L);
+
+        for (int group = 0; group < groups.size(); group++) {
+            for (String keyword : groups.get(group)) {
+                if (keyword == null || keyword.isEmpty()) {
+                    continue;
+                }
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = Character.toLowerCase(keyword.charAt(i));
+                    Integer next = trie.get(state).get(c);
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new TreeMap<>());
+                        outputs.add(0L);
+                        trie.get(state).put(c, next);
+                    }
+                    state = next;
+                }
+                outputs.set(state, outputs.get(state) | (1L << group));
+            }
+        }
+
+        int size = trie.size();
+        edgeChars = new char[size][];
+        edgeTargets = new int[size][];
+        failure = new int[size];
+        output = new long[size];
+
+        for (int state = 0; state < size; state++) {
+            TreeMap<Character, Integer> edges = trie.get(state);
+            edgeChars[state] = new char[edges.size()];
+            edgeTargets[state] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[state][i] = edge.getKey();
+                edgeTargets[state][i] = edge.getValue();
+                i++;
+            }
+            output[state] = outputs.get(state);
+        }
+
+        // 2단계: BFS로 failure 링크를 만들고 출력 비트를 전파
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int target = edgeTargets[state][i];
+
+                int fallback = failure[state];
+                while (fallback != 0 && next(fallback, c) < 0) {
+                    fallback = failure[fallback];
+                }
+                int candidate = next(fallback, c);
+                failure[target] = candidate >= 0 && candidate != target ? candidate : 0;
+                output[target] |= output[failure[target]];
+                queue.add(target);
+            }
+        }
+
+        allGroups = groups.size() == Long.SIZE ? -1L : (1L << groups.size()) - 1;
+    }
+
+    // 텍스트를 복사하지 않고 한 번 훑어서 찾은 그룹 비트를 반환 (found에 이미 있는 그룹까지 모두 찾으면 바로 종료)
+    public long match(CharSequence text, long found) {
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length && found != allGroups; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int target;
+            while ((target = next(state, c)) < 0 && state != 0) {
+                state = failure[state];
+            }
+            state = Math.max(target, 0);
+            found |= output[state];
+        }
+        return found;
+    }
+
+    public long match(CharSequence text) {
+        return match(text, 0L);
+    }
+
+    private int next(int state, char c) {
+        int index = Arrays.binarySearch(edgeChars[state], c);
+        return index >= 0 ? edgeTargets[state][index] : -1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.new_ai.service;
+
+import java.util.Arrays;
+
+// 최근 N개 응답 시간(ms)을 담는 링 버퍼, 분위수는 조회할 때 정렬해서 계산
+public class LatencyHistogram {
+
+    private final long[] samples;
+    private long count;
+
+    public LatencyHistogram(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    public synchronized void record(long millis) {
+        samples[(int) (count % samples.length)] = millis;
+        count++;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(count, samples.length);
+    }
+
+    // percentile: 0~100, 샘플이 없으면 -1
+    public long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, size());
+        }
+        if (sorted.length == 0) {
+            return -1;
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,358 @@
+package com.new_ai.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// 벡터 검색과 함께 쓰는 BM25 어휘 검색
+// - 질의가 알려진 엔티티(NPC/장소/아이템 이름)를 포함하면 임베딩/ANN 없이 어휘 검색 결과만 사용
+// - 그 외에는 벡터 결과와 어휘 결과를 RRF(reciprocal rank fusion)로 합침
+// 색인은 시작 시 저장소에서 한 번 읽고, 이후에는 DocumentsChangedEvent로 갱신
+@Service
+public class LexicalSearch {
+
+    @Autowired
+    private VectorStore vectorStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${rag.lexical.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rag.lexical.entity-fast-path:true}")
+    private boolean entityFastPath;
+
+    // 질의 단어 중 문서에 들어 있어야 하는 비율
+    @Value("${rag.lexical.min-term-match:0.5}")
+    private double minTermMatch;
+
+    @Value("${rag.lexical.rrf-k:60}")
+    private int rrfK;
+
+    // 문서 제목 외에 추가로 인식할 엔티티 이름 (쉼표 구분)
+    @Value("${rag.lexical.entities:}")
+    private String configuredEntities;
+
+    @Value("${spring.ai.vectorstore.pgvector.schema-name:public}")
+    private String schemaName;
+
+    @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}")
+    private String tableName;
+
+    private final Bm25Index index;
+    // 제목을 엔티티로 쓰는 문서 type (규칙/시나리오/세계관 제목의 일반 단어가 빠른 경로를 타지 않도록)
+    private final Set<String> entityTypes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 공백 제거 소문자 엔티티 -> (원래 이름, 그 이름을 제목으로 가진 청크 수)
+    private final Map<String, EntityName> entities = new HashMap<>();
+
+    private record EntityName(String name, int count) {
+    }
+
+    private volatile boolean loaded = false;
+    private volatile boolean loading = false;
+
+    // 전체 로드 중에 들어온 추가/삭제는 모아 두었다가 로드 후 순서대로 반영 (loadLock으로 보호)
+    private final Object loadLock = new Object();
+    private final List<DocumentsChangedEvent> pendingEvents = new ArrayList<>();
+    private boolean reloadRequested = false;
+
+    private final AtomicLong fastPathHits = new AtomicLong();
+    private final AtomicLong hybridSearches = new AtomicLong();
+
+    public LexicalSearch(@Value("${rag.lexical.ngram:2}") int ngram,
+                         @Value("${rag.lexical.k1:1.2}") double k1,
+                         @Value("${rag.lexical.b:0.75}") double b,
+                         @Value("${rag.lexical.entity-types:npc,location,item}") String entityTypes) {
+        this.index = new Bm25Index(ngram, k1, b);
+        this.entityTypes = Arrays.stream(entityTypes.split(","))
+                .map(type -> type.trim().toLowerCase(Locale.ROOT))
+                .filter(type -> !type.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isLoading() {
+        return enabled && loading;
+    }
+
+    public boolean isReady() {
+        return enabled && loaded;
+    }
+
+    // 알려진 엔티티가 질의에 있으면 그 이름을 모두 포함하는 문서를 BM25 순으로 반환 (없으면 빈 목록)
+    public List<Document> entitySearch(String query, RetrievalFilter filter, int topK) {
+        if (!isReady() || !entityFastPath) {
+            return List.of();
+        }
+        String entity = findEntity(query);
+        if (entity == null) {
+            return List.of();
+        }
+        List<Document> documents = index.search(query, topK, 0, index.terms(entity), filter::matches);
+        if (!documents.isEmpty()) {
+            fastPathHits.incrementAndGet();
+        }
+        return documents;
+    }
+
+    public List<Document> search(String query, RetrievalFilter filter, int topK) {
+        if (!isReady()) {
+            return List.of();
+        }
+        return index.search(query, topK, minTermMatch, filter::matches);
+    }
+
+    // 벡터 결과와 어휘 결과를 순위 기준으로 합침: score = Σ 1 / (k + rank)
+    public List<Document> fuse(List<Document> vectorResults, List<Document> lexicalResults, int topK) {
+        if (lexicalResults.isEmpty()) {
+            return vectorResults;
+        }
+        hybridSearches.incrementAndGet();
+
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (List<Document> results : List.of(vectorResults, lexicalResults)) {
+            for (int rank = 0; rank < results.size(); rank++) {
+                Document document = results.get(rank);
+                // 같은 문서가 양쪽에 있으면 코사인 점수를 가진 벡터 결과를 유지
+                documents.putIfAbsent(document.getId(), document);
+                scores.merge(document.getId(), 1.0 / (rrfK + rank + 1), Double::sum);
+            }
+        }
+        return documents.values().stream()
+                .sorted((a, b) -> Double.compare(scores.get(b.getId()), scores.get(a.getId())))
+                .limit(topK)
+                .toList();
+    }
+
+    private String findEntity(String query) {
+        String compact = compact(query);
+        String best = null;
+        int bestLength = 0;
+        synchronized (entities) {
+            for (Map.Entry<String, EntityName> entry : entities.entrySet()) {
+                String key = entry.getKey();
+                if (key.length() > bestLength && compact.contains(key)) {
+                    best = entry.getValue().name();
+                    bestLength = key.length();
+                }
+            }
+        }
+        return best;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            startLoad();
+        }
+    }
+
+    @EventListener
+    public void onDocumentsChanged(DocumentsChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (event.isAllChanged()) {
+                startLoad();
+                return;
+            }
+            if (loading) {
+                pendingEvents.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(DocumentsChangedEvent event) {
+        remove(event.getRemovedIds());
+        add(event.getAdded());
+    }
+
+    private void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        // 이미 색인된 문서(로드에 포함된 뒤 다시 반영되는 경우, 같은 id로 다시 저장된 경우)는 엔티티 개수를 먼저 되돌림
+        remove(documents.stream().map(Document::getId).filter(id -> index.get(id) != null).toList());
+        index.add(documents);
+        synchronized (entities) {
+            for (Document document : documents) {
+                String entity = entityName(document.getMetadata());
+                if (entity != null) {
+                    entities.merge(compact(entity), new EntityName(entity, 1),
+                            (a, b) -> new EntityName(a.name(), a.count() + 1));
+                }
+            }
+        }
+    }
+
+    private void remove(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        // 제목 엔티티 개수를 줄이려면 지우기 전에 메타데이터가 필요
+        List<Map<String, Object>> removed = new ArrayList<>();
+        for (String id : ids) {
+            Document document = index.get(id);
+            if (document != null) {
+                removed.add(document.getMetadata());
+            }
+        }
+        index.remove(ids);
+        synchronized (entities) {
+            for (Map<String, Object> metadata : removed) {
+                String entity = entityName(metadata);
+                if (entity != null) {
+                    entities.computeIfPresent(compact(entity),
+                            (key, value) -> value.count() > 1 ? new EntityName(value.name(), value.count() - 1) : null);
+                }
+            }
+        }
+    }
+
+    private void startLoad() {
+        synchronized (loadLock) {
+            if (loading) {
+                // 이미 로드 중이면 끝난 뒤 처음부터 다시 (모아 둔 변경은 새 로드에 포함됨)
+                reloadRequested = true;
+                return;
+            }
+            loading = true;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                boolean again;
+                do {
+                    load();
+                    again = replayPendingEvents();
+                } while (again);
+            } catch (Exception e) {
+                System.err.println("Lexical index load failed, using vector search only: " + e.getMessage());
+                synchronized (loadLock) {
+                    loading = false;
+                    reloadRequested = false;
+                    pendingEvents.clear();
+                }
+            }
+        }, "lexical-index-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 로드 중에 들어온 변경을 반영하고 (반영하는 동안 들어온 것도 이어서) 로드 완료 처리
+    // 그 사이 전체 변경이 있었으면 true (다시 전체 로드)
+    private boolean replayPendingEvents() {
+        while (true) {
+            List<DocumentsChangedEvent> events;
+            synchronized (loadLock) {
+                if (reloadRequested) {
+                    reloadRequested = false;
+                    pendingEvents.clear();
+                    return true;
+                }
+                if (pendingEvents.isEmpty()) {
+                    loaded = true;
+                    loading = false;
+                    return false;
+                }
+                events = new ArrayList<>(pendingEvents);
+                pendingEvents.clear();
+            }
+            events.forEach(this::apply);
+        }
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        loaded = false;
+        index.clear();
+        synchronized (entities) {
+            entities.clear();
+            for (String entity : configuredEntities.split(",")) {
+                if (compact(entity).length() >= 2) {
+                    entities.put(compact(entity), new EntityName(entity.trim(), Integer.MAX_VALUE / 2));
+                }
+            }
+        }
+
+        if (vectorStore instanceof LocalVectorStore localVectorStore) {
+            add(localVectorStore.documents());
+        } else {
+            List<Document> batch = new ArrayList<>();
+            jdbcTemplate.query("SELECT id, content, metadata FROM " + schemaName + "." + tableName, rs -> {
+                try {
+                    Map<String, Object> metadata = objectMapper.readValue(rs.getString("metadata"),
+                            new TypeReference<Map<String, Object>>() { });
+                    batch.add(new Document(rs.getString("id"), rs.getString("content"), metadata));
+                } catch (Exception e) {
+                    throw new IllegalStateException("Cannot read document row " + rs.getString("id"), e);
+                }
+                if (batch.size() >= 1000) {
+                    add(batch);
+                    batch.clear();
+                }
+            });
+            add(batch);
+        }
+        System.out.println("Lexical index loaded: " + index.size() + " chunks, " + index.termCount() + " terms, "
+                + entities.size() + " entities in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    // 엔티티 type(NPC/장소/아이템) 문서의 제목에서 "NPC_", "장소_" 같은 분류 접두어를 뗀 이름
+    private String entityName(Map<String, Object> metadata) {
+        Object title = metadata.get("title");
+        Object type = metadata.get("type");
+        if (title == null || type == null || !entityTypes.contains(type.toString().toLowerCase(Locale.ROOT))) {
+            return null;
+        }
+        String name = title.toString();
+        int separator = name.indexOf('_');
+        if (separator >= 0) {
+            name = name.substring(separator + 1);
+        }
+        name = name.trim();
+        return compact(name).length() >= 2 ? name : null;
+    }
+
+    private static String compact(String text) {
+        return text.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        stats.put("documents", index.size());
+        stats.put("terms", index.termCount());
+        synchronized (entities) {
+            stats.put("entities", entities.size());
+        }
+        stats.put("fastPathHits", fastPathHits.get());
+        stats.put("hybridSearches", hybridSearches.get());
+        return stats;
+    }
+}
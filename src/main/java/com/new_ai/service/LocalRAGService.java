@@ -1,18 +1,29 @@
 package com.new_ai.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class LocalRAGService {
@@ -23,12 +34,51 @@ public class LocalRAGService {
     @Autowired(required = false)
     private ChatModel chatModel;
     
+    @Autowired
+    private DocumentWriteCoalescer documentWriteCoalescer;
+    
+    @Autowired
+    private RetrievalCache retrievalCache;
+    
+    @Autowired
+    private AnswerCache answerCache;
+    
+    @Autowired
+    private QuantizedVectorSearch quantizedVectorSearch;
+
+    @Autowired
+    private LexicalSearch lexicalSearch;
+    
+    @Autowired
+    private EmbeddingModel embeddingModel;
+    
+    @Autowired
+    private ContextAssembler contextAssembler;
+    
+    @Autowired
+    private NeighbourChunkExpander neighbourChunkExpander;
+    
     @Value("${rag.search.top-k:5}")
     private int topK;
     
     @Value("${rag.similarity.threshold:0.7}")
     private double similarityThreshold;
     
+    @Value("${rag.context.token-budget:1500}")
+    private int contextTokenBudget;
+    
+    // 배치 검색에서 동시에 실행할 검색 수 (DB 커넥션 풀보다 작게 유지)
+    @Value("${rag.search.batch.max-concurrency:3}")
+    private int batchConcurrency;
+    
+    private ExecutorService batchExecutor;
+    
+    // 같은 질의(정규화 후)와 필터로 동시에 들어온 요청은 검색~답변 생성을 한 번만 실행
+    private final SingleFlight<RetrievalCache.Key, String> inFlightAnswers = new SingleFlight<>();
+    
+    public record SearchResult(String query, List<Document> documents, String error) {
+    }
+    
     private static final String RAG_PROMPT_TEMPLATE = """
             당신은 TRPG 던전마스터입니다. 주어진 컨텍스트를 바탕으로 플레이어의 질문에 답변해주세요.
             
@@ -45,49 +95,159 @@ public class LocalRAGService {
             답변:
             """;
     
+    @PostConstruct
+    public void startBatchExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        batchExecutor = Executors.newFixedThreadPool(Math.max(1, batchConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "rag-batch-search-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void stopBatchExecutor() {
+        batchExecutor.shutdownNow();
+    }
+    
+    // 여러 질의의 관련 문서를 한 번에 검색 (LLM 생성 없음)
+    public List<SearchResult> searchBatch(List<String> queries, RetrievalFilter filter) {
+        // 임베딩을 한 번의 배치 호출로 미리 계산해 캐시에 넣어 두면 개별 검색의 임베딩은 캐시에서 나옴
+        // (임베딩 캐시를 끈 경우에는 미리 계산해도 재사용되지 않으므로 생략)
+        if (embeddingModel instanceof CachingEmbeddingModel) {
+            try {
+                embeddingModel.embed(queries.stream().distinct().toList());
+            } catch (Exception e) {
+                System.err.println("Batch embedding failed, embedding per query: " + e.getMessage());
+            }
+        }
+        
+        // 검색은 고정 크기 풀에서 병렬 실행 (동시 실행 수 = 사용하는 커넥션 수 상한)
+        List<CompletableFuture<List<Document>>> futures = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            futures.add(CompletableFuture.supplyAsync(() -> searchRelevantDocuments(query, filter), batchExecutor));
+        }
+        
+        List<SearchResult> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            try {
+                results.add(new SearchResult(queries.get(i), futures.get(i).join(), null));
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                results.add(new SearchResult(queries.get(i), List.of(), cause.getMessage()));
+            }
+        }
+        return results;
+    }
+    
     public String searchAndGenerate(String query, String worldType, String sessionId) {
+        return searchAndGenerate(query, RetrievalFilter.worldType(worldType), sessionId);
+    }
+    
+    public String searchAndGenerate(String query, RetrievalFilter filter, String sessionId) {
+        RetrievalCache.Key key = RetrievalCache.Key.of(query, filter, topK, similarityThreshold);
+        return inFlightAnswers.execute(key, () -> generateAnswer(query, filter));
+    }
+    
+    private String generateAnswer(String query, RetrievalFilter filter) {
         try {
             // 1. 벡터 검색으로 관련 문서 찾기
-            List<Document> relevantDocs = searchRelevantDocuments(query, worldType);
+            List<Document> searchedDocs = searchRelevantDocuments(query, filter);
             
-            // 2. 컨텍스트 구성
-            String context = buildContext(relevantDocs);
+            // 비슷한 질문에 같은 문서로 답한 적이 있으면 LLM 호출 생략
+            AnswerCache.Lookup cached = chatModel != null ? answerCache.lookup(query, filter, searchedDocs) : null;
+            if (cached != null && cached.answer() != null) {
+                return cached.answer();
+            }
+            
+            // 2. 컨텍스트 구성 (설정 시 앞뒤 청크 포함)
+            String context = buildContext(neighbourChunkExpander.expand(searchedDocs));
             
             // 3. LLM으로 답변 생성
-            return generateResponse(query, context);
+            if (cached == null) {
+                return generateResponse(query, context);
+            }
+            try {
+                String answer = callChatModel(query, context);
+                answerCache.put(cached, answer);
+                return answer;
+            } catch (Exception e) {
+                return "LLM 호출 중 오류가 발생했습니다. 검색 결과:\n\n" + context;
+            }
             
         } catch (Exception e) {
             return "죄송합니다. 현재 정보를 검색할 수 없습니다. 나중에 다시 시도해주세요.";
         }
     }
     
-    private List<Document> searchRelevantDocuments(String query, String worldType) {
-        SearchRequest searchRequest = SearchRequest.builder()
-                .query(query)
-                .topK(topK)
-                .similarityThreshold(similarityThreshold)
-                .build();
+    // 생성되는 대로 답변 조각을 전달 (ChatModel.stream)
+    public Flux<String> streamSearchAndGenerate(String query, RetrievalFilter filter) {
+        return Flux.defer(() -> {
+            List<Document> relevantDocs = neighbourChunkExpander.expand(searchRelevantDocuments(query, filter));
+            String context = buildContext(relevantDocs);
+            
+            if (chatModel == null) {
+                return Flux.just("ChatModel이 설정되지 않아 검색 결과만 반환합니다:\n\n" + context);
+            }
+            
+            PromptTemplate promptTemplate = new PromptTemplate(RAG_PROMPT_TEMPLATE);
+            Prompt prompt = promptTemplate.create(Map.of(
+                    "context", context,
+                    "question", query
+            ));
+            return chatModel.stream(prompt)
+                    .mapNotNull(response -> response.getResult() != null
+                            ? response.getResult().getOutput().getContent() : null)
+                    .filter(text -> !text.isEmpty());
+        }).subscribeOn(Schedulers.boundedElastic()); // 검색은 블로킹 호출
+    }
+    
+    private List<Document> searchRelevantDocuments(String query, RetrievalFilter filter) {
+        // NPC/장소/아이템 이름이 들어간 질의는 어휘 색인만으로 처리 (임베딩, ANN 생략)
+        List<Document> entityDocuments = lexicalSearch.entitySearch(query, filter, topK);
+        if (!entityDocuments.isEmpty()) {
+            return entityDocuments;
+        }
+        
+        // 캐시에는 벡터 검색 결과만 두고 어휘 결과는 매번 메모리 색인에서 합침
+        List<Document> documents = searchVectorStore(query, filter);
+        return lexicalSearch.fuse(documents, lexicalSearch.search(query, filter, topK), topK);
+    }
+    
+    private List<Document> searchVectorStore(String query, RetrievalFilter filter) {
+        // 같은 질문이 반복되면 임베딩 호출과 벡터 검색을 모두 건너뜀
+        RetrievalCache.Key cacheKey = RetrievalCache.Key.of(query, filter, topK, similarityThreshold);
+        List<Document> cached = retrievalCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = retrievalCache.currentGeneration();
         
-        List<Document> documents = vectorStore.similaritySearch(searchRequest);
+        if (quantizedVectorSearch.isEnabled()) {
+            // halfvec/binary 인덱스로 후보를 넓게 뽑고 원본 벡터로 재정렬
+            List<Document> documents = quantizedVectorSearch.similaritySearch(query, topK, similarityThreshold,
+                    filter.isEmpty() ? null : filter.toExpression());
+            retrievalCache.put(cacheKey, query, documents, generation);
+            return documents;
+        }
         
-        // 월드 타입 필터링 (메타데이터가 있는 경우)
-        if (worldType != null && !worldType.isEmpty()) {
-            documents = documents.stream()
-                    .filter(doc -> {
-                        Map<String, Object> metadata = doc.getMetadata();
-                        String docWorldType = (String) metadata.get("world_type");
-                        return docWorldType == null || docWorldType.equals("all") || docWorldType.equals(worldType);
-                    })
-                    .collect(Collectors.toList());
+        // 메타데이터 필터는 SQL로 내려보내서 걸러진 뒤에도 topK개를 채움
+        SearchRequest.Builder searchRequest = SearchRequest.builder()
+                .query(query)
+                .topK(topK)
+                .similarityThreshold(similarityThreshold);
+        if (!filter.isEmpty()) {
+            searchRequest.filterExpression(filter.toExpression());
         }
         
+        List<Document> documents = vectorStore.similaritySearch(searchRequest.build());
+        
+        retrievalCache.put(cacheKey, query, documents, generation);
         return documents;
     }
     
     private String buildContext(List<Document> documents) {
-        return documents.stream()
-                .map(Document::getContent)
-                .collect(Collectors.joining("\n\n---\n\n"));
+        return contextAssembler.assemble(documents, contextTokenBudget);
     }
     
     private String generateResponse(String query, String context) {
@@ -96,25 +256,34 @@ public class LocalRAGService {
         }
         
         try {
-            PromptTemplate promptTemplate = new PromptTemplate(RAG_PROMPT_TEMPLATE);
-            Prompt prompt = promptTemplate.create(Map.of(
-                    "context", context,
-                    "question", query
-            ));
-            
-            return chatModel.call(prompt).getResult().getOutput().getContent();
+            return callChatModel(query, context);
         } catch (Exception e) {
             return "LLM 호출 중 오류가 발생했습니다. 검색 결과:\n\n" + context;
         }
     }
     
+    private String callChatModel(String query, String context) {
+        PromptTemplate promptTemplate = new PromptTemplate(RAG_PROMPT_TEMPLATE);
+        Prompt prompt = promptTemplate.create(Map.of(
+                "context", context,
+                "question", query
+        ));
+        
+        return chatModel.call(prompt).getResult().getOutput().getContent();
+    }
+    
     public void addDocument(String content, Map<String, Object> metadata) {
         try {
             System.out.println("Adding document with content length: " + content.length());
             System.out.println("Metadata: " + metadata);
             
-            Document document = new Document(content, metadata);
-            vectorStore.add(List.of(document));
+            // 동시에 들어온 추가 요청과 묶어서 저장 (이 문서가 저장될 때까지 대기)
+            // world_type이 없으면 모든 세계관 검색에 포함
+            Map<String, Object> documentMetadata = new HashMap<>(metadata);
+            documentMetadata.putIfAbsent("world_type", "all");
+            
+            Document document = new Document(content, documentMetadata);
+            documentWriteCoalescer.add(document);
             
             System.out.println("Document added successfully");
         } catch (Exception e) {
@@ -124,6 +293,10 @@ public class LocalRAGService {
         }
     }
     
+    public Map<String, Object> getSingleFlightStats() {
+        return inFlightAnswers.getStats();
+    }
+    
     public int getDocumentCount() {
         // 실제 구현에서는 VectorStore에서 문서 수를 조회하는 방법 사용
         return 0; // placeholder
@@ -0,0 +1,418 @@
+package com.new_ai.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.util.JacksonUtils;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 프로세스 안에서 동작하는 VectorStore (코사인 유사도, 전수 검색)
+// 벡터: 정규화해서 memory-mapped 파일(vectors.f32)에 슬롯 단위로 연속 저장 (off-heap)
+// 문서 내용/메타데이터: JSON lines 저널(documents.jsonl)에 추가 기록, 열 때 재생
+public class LocalVectorStore implements VectorStore, AutoCloseable {
+
+    private static final int MAGIC = 0x4C565331; // "LVS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final EmbeddingModel embeddingModel;
+    private final int dimensions;
+    private final Path vectorPath;
+    private final Path journalPath;
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModules(JacksonUtils.instantiateAvailableModules())
+            .build();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private FloatBuffer vectors;
+    private int capacity;
+
+    // 슬롯 -> 문서 (null이면 빈 슬롯), id -> 슬롯
+    private final List<Document> slots = new ArrayList<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+
+    private BufferedWriter journal;
+    private long journalRecords;
+
+    private record JournalRecord(String op, String id, Integer slot, String content, Map<String, Object> metadata) {
+    }
+
+    public LocalVectorStore(EmbeddingModel embeddingModel, int dimensions, Path directory) throws IOException {
+        this.embeddingModel = embeddingModel;
+        this.dimensions = dimensions;
+        this.vectorPath = directory.resolve("vectors.f32");
+        this.journalPath = directory.resolve("documents.jsonl");
+        Files.createDirectories(directory);
+        open();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(vectorPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean compatible = false;
+        if (channel.size() >= HEADER_SIZE) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            compatible = header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getInt(8) == dimensions;
+            capacity = compatible ? header.getInt(12) : 0;
+        }
+
+        if (!compatible) {
+            // 차원 수가 바뀌었거나 새 파일이면 저널과 함께 비우고 시작
+            Files.deleteIfExists(journalPath);
+            capacity = 0;
+        }
+        map(Math.max(capacity, INITIAL_CAPACITY));
+
+        if (Files.exists(journalPath)) {
+            replayJournal();
+        }
+        journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        System.out.println("Local vector store opened: " + vectorPath.getParent() + " (" + slotsById.size() + " documents)");
+    }
+
+    private void map(int newCapacity) throws IOException {
+        long size = HEADER_SIZE + (long) newCapacity * dimensions * Float.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Local vector store is full (" + capacity + " vectors of " + dimensions + " dimensions)");
+        }
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putInt(8, dimensions);
+        mapped.putInt(12, newCapacity);
+        // 검색 루프에서 float마다 byte swap이 일어나지 않도록 native order (x86에서는 little-endian)
+        vectors = mapped.slice(HEADER_SIZE, (int) size - HEADER_SIZE).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        capacity = newCapacity;
+    }
+
+    private void replayJournal() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalRecord record;
+                try {
+                    record = objectMapper.readValue(line, JournalRecord.class);
+                } catch (IOException e) {
+                    // 마지막 줄이 쓰다 끊긴 경우
+                    System.err.println("Skipping corrupt local vector store journal line: " + e.getMessage());
+                    continue;
+                }
+                journalRecords++;
+                Integer previous = slotsById.remove(record.id());
+                if (previous != null) {
+                    slots.set(previous, null);
+                }
+                if ("put".equals(record.op()) && record.slot() != null && record.slot() < capacity) {
+                    setSlot(record.slot(), new Document(record.id(), record.content(), record.metadata()));
+                }
+            }
+        }
+        // 빈 슬롯은 재생이 끝난 뒤 한 번에 계산
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (slots.get(slot) == null) {
+                freeSlots.add(slot);
+            }
+        }
+    }
+
+    private void setSlot(int slot, Document document) {
+        while (slots.size() <= slot) {
+            slots.add(null);
+        }
+        slots.set(slot, document);
+        slotsById.put(document.getId(), slot);
+    }
+
+    private Integer removeFromSlots(String id) {
+        Integer slot = slotsById.remove(id);
+        if (slot != null) {
+            slots.set(slot, null);
+            freeSlots.add(slot);
+        }
+        return slot;
+    }
+
+    @Override
+    public String getName() {
+        return "LocalVectorStore";
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<float[]> embeddings = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+        add(documents, embeddings);
+    }
+
+    // 이미 계산된 임베딩으로 추가 (같은 id는 덮어씀)
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                float[] embedding = embeddings.get(i);
+                if (embedding.length != dimensions) {
+                    throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + embedding.length);
+                }
+
+                Integer slot = slotsById.get(document.getId());
+                if (slot == null) {
+                    slot = freeSlots.isEmpty() ? slots.size() : freeSlots.poll();
+                    if (slot >= capacity) {
+                        map(capacity * 2);
+                    }
+                }
+                writeVector(slot, embedding);
+
+                Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+                metadata.remove("distance");
+                Document stored = new Document(document.getId(), document.getText(), metadata);
+                setSlot(slot, stored);
+                appendJournal(new JournalRecord("put", stored.getId(), slot, stored.getText(), metadata));
+            }
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Boolean> delete(List<String> ids) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = false;
+            for (String id : ids) {
+                if (removeFromSlots(id) != null) {
+                    appendJournal(new JournalRecord("delete", id, null, null, null));
+                    removed = true;
+                }
+            }
+            flush();
+            return Optional.of(removed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            slotsById.clear();
+            freeSlots.clear();
+            journal.close();
+            journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            journalRecords = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return slotsById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 저장된 문서 스냅샷 (벡터 제외)
+    public List<Document> documents() {
+        lock.readLock().lock();
+        try {
+            return slots.stream().filter(document -> document != null).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] query = embeddingModel.embed(request.getQuery());
+        return similaritySearch(query, request.getTopK(), request.getSimilarityThreshold(), request.getFilterExpression());
+    }
+
+    public List<Document> similaritySearch(float[] query, int topK, double threshold, Filter.Expression filter) {
+        float[] normalized = normalize(query);
+        // 점수가 낮은 것이 먼저 나오는 크기 topK의 힙
+        PriorityQueue<double[]> heap = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < slots.size(); slot++) {
+                Document document = slots.get(slot);
+                if (document == null) {
+                    continue;
+                }
+                double score = dot(normalized, slot);
+                if (score < threshold || (heap.size() >= topK && score <= heap.peek()[0])) {
+                    continue;
+                }
+                if (!MetadataFilterEvaluator.matches(filter, document.getMetadata())) {
+                    continue;
+                }
+                heap.add(new double[] {score, slot});
+                if (heap.size() > topK) {
+                    heap.poll();
+                }
+            }
+
+            List<Document> results = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                double[] entry = heap.poll();
+                Document document = slots.get((int) entry[1]);
+                Map<String, Object> metadata = new LinkedHashMap<>(document.getMetadata());
+                // PgVectorStore와 같이 distance를 메타데이터에 담아 반환
+                metadata.put("distance", (float) (1 - entry[0]));
+                results.add(0, Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(metadata)
+                        .score(entry[0])
+                        .build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 누산기 4개로 나눠 의존성을 끊어서 JIT가 명령어 수준 병렬화를 할 수 있게 함
+    private double dot(float[] query, int slot) {
+        int base = slot * dimensions;
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimensions; i += 4) {
+            s0 += query[i] * vectors.get(base + i);
+            s1 += query[i + 1] * vectors.get(base + i + 1);
+            s2 += query[i + 2] * vectors.get(base + i + 2);
+            s3 += query[i + 3] * vectors.get(base + i + 3);
+        }
+        for (; i < dimensions; i++) {
+            s0 += query[i] * vectors.get(base + i);
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    private void writeVector(int slot, float[] embedding) {
+        vectors.put(slot * dimensions, normalize(embedding));
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return vector.clone();
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private void appendJournal(JournalRecord record) throws IOException {
+        journal.write(objectMapper.writeValueAsString(record));
+        journal.newLine();
+        journalRecords++;
+    }
+
+    // 벡터를 먼저 디스크에 반영한 뒤 저널을 flush (저널에 있는 슬롯은 항상 벡터가 기록된 상태)
+    private void flush() throws IOException {
+        mapped.force();
+        journal.flush();
+        if (journalRecords > 2L * slotsById.size() + 1000) {
+            compactJournal();
+        }
+    }
+
+    private void compactJournal() throws IOException {
+        Path temp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (int slot = 0; slot < slots.size(); slot++) {
+                Document document = slots.get(slot);
+                if (document != null) {
+                    writer.write(objectMapper.writeValueAsString(
+                            new JournalRecord("put", document.getId(), slot, document.getText(), document.getMetadata())));
+                    writer.newLine();
+                }
+            }
+        }
+        journal.close();
+        Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        journalRecords = slotsById.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                mapped.force();
+                journal.close();
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
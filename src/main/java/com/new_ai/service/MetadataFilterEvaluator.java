@@ -0,0 +1,100 @@
+package com.new_ai.service;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Spring AI 필터 식을 메타데이터 Map에 대해 직접 평가 (pgvector jsonpath lax 모드와 같게 배열 값은 원소 중 하나라도 일치하면 참)
+public final class MetadataFilterEvaluator {
+
+    private MetadataFilterEvaluator() {
+    }
+
+    public static boolean matches(Filter.Expression expression, Map<String, Object> metadata) {
+        if (expression == null) {
+            return true;
+        }
+        return switch (expression.type()) {
+            case AND -> matches(operand(expression.left()), metadata) && matches(operand(expression.right()), metadata);
+            case OR -> matches(operand(expression.left()), metadata) || matches(operand(expression.right()), metadata);
+            case NOT -> !matches(operand(expression.left()), metadata);
+            case EQ -> anyValue(metadata, expression, value -> equalsValue(value, constant(expression)));
+            case NE -> !anyValue(metadata, expression, value -> equalsValue(value, constant(expression)));
+            case GT -> anyValue(metadata, expression, value -> compare(value, constant(expression)) > 0);
+            case GTE -> anyValue(metadata, expression, value -> compare(value, constant(expression)) >= 0);
+            case LT -> anyValue(metadata, expression, value -> compare(value, constant(expression)) < 0);
+            case LTE -> anyValue(metadata, expression, value -> compare(value, constant(expression)) <= 0);
+            case IN -> anyValue(metadata, expression, value -> contains(constant(expression), value));
+            case NIN -> !anyValue(metadata, expression, value -> contains(constant(expression), value));
+        };
+    }
+
+    private interface ValueTest {
+        boolean test(Object value);
+    }
+
+    private static boolean anyValue(Map<String, Object> metadata, Filter.Expression expression, ValueTest test) {
+        Object value = metadata.get(key(expression));
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Collection<?> values) {
+            for (Object element : values) {
+                if (element != null && test.test(element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return test.test(value);
+    }
+
+    private static Filter.Expression operand(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return group.content();
+        }
+        return (Filter.Expression) operand;
+    }
+
+    private static String key(Filter.Expression expression) {
+        String key = ((Filter.Key) expression.left()).key();
+        // 'key' 또는 "key" 형태로 따옴표가 붙은 키 허용
+        if (key.length() >= 2 && (key.startsWith("\"") && key.endsWith("\"") || key.startsWith("'") && key.endsWith("'"))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+
+    private static Object constant(Filter.Expression expression) {
+        return ((Filter.Value) expression.right()).value();
+    }
+
+    private static boolean contains(Object constants, Object value) {
+        if (constants instanceof List<?> list) {
+            for (Object constant : list) {
+                if (equalsValue(value, constant)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return equalsValue(value, constants);
+    }
+
+    private static boolean equalsValue(Object value, Object constant) {
+        if (value instanceof Number a && constant instanceof Number b) {
+            return Double.compare(a.doubleValue(), b.doubleValue()) == 0;
+        }
+        return Objects.equals(String.valueOf(value), String.valueOf(constant));
+    }
+
+    private static int compare(Object value, Object constant) {
+        if (value instanceof Number a && constant instanceof Number b) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        return String.valueOf(value).compareTo(String.valueOf(constant));
+    }
+}
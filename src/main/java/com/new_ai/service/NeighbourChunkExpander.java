@@ -0,0 +1,128 @@
+package com.new_ai.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 검색된 청크의 앞뒤 N개 청크(같은 source_file, chunk_index 범위)를 한 번의 조회로 가져와 결과에 추가
+// 임베딩이나 ANN 검색 없이 메타데이터만 사용. 합치기와 순서는 ContextAssembler가 chunk_index 기준으로 처리
+@Component
+public class NeighbourChunkExpander {
+
+    @Autowired
+    private VectorStore vectorStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 0이면 확장하지 않음
+    @Value("${rag.retrieval.expand-neighbours:0}")
+    private int neighbours;
+
+    @Value("${spring.ai.vectorstore.pgvector.schema-name:public}")
+    private String schemaName;
+
+    @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}")
+    private String tableName;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private record Window(String sourceFile, int from, int to) {
+    }
+
+    public boolean isEnabled() {
+        return neighbours > 0;
+    }
+
+    public List<Document> expand(List<Document> hits) {
+        if (!isEnabled() || hits.isEmpty()) {
+            return hits;
+        }
+
+        // 같은 창은 한 번만 조회
+        Map<String, Window> windows = new LinkedHashMap<>();
+        Set<String> hitIds = new HashSet<>();
+        for (Document hit : hits) {
+            hitIds.add(hit.getId());
+            Map<String, Object> metadata = hit.getMetadata();
+            Object sourceFile = metadata.get("source_file");
+            if (sourceFile == null || !(metadata.get("chunk_index") instanceof Number chunkIndex)) {
+                continue;
+            }
+            int from = Math.max(0, chunkIndex.intValue() - neighbours);
+            int to = chunkIndex.intValue() + neighbours;
+            if (metadata.get("total_chunks") instanceof Number totalChunks) {
+                to = Math.min(to, totalChunks.intValue() - 1);
+            }
+            Window window = new Window(sourceFile.toString(), from, to);
+            windows.merge(window.sourceFile() + "#" + from, window, (a, b) -> a);
+        }
+        if (windows.isEmpty()) {
+            return hits;
+        }
+
+        try {
+            List<Document> expanded = new ArrayList<>(hits);
+            for (Document neighbour : fetch(List.copyOf(windows.values()))) {
+                if (hitIds.add(neighbour.getId())) {
+                    expanded.add(neighbour);
+                }
+            }
+            return expanded;
+        } catch (Exception e) {
+            System.err.println("Neighbour chunk expansion failed, using hits only: " + e.getMessage());
+            return hits;
+        }
+    }
+
+    private List<Document> fetch(List<Window> windows) {
+        if (vectorStore instanceof LocalVectorStore localVectorStore) {
+            return localVectorStore.documents().stream()
+                    .filter(document -> windows.stream().anyMatch(window -> contains(window, document.getMetadata())))
+                    .toList();
+        }
+
+        // (source_file, from, to) 목록을 배열로 넘겨 한 번에 조회. source_file 조건은 metadata GIN 인덱스(@>) 사용
+        String sql = "SELECT t.id, t.content, t.metadata FROM " + schemaName + "." + tableName + " t"
+                + " JOIN unnest(?::text[], ?::int[], ?::int[]) AS w(source_file, chunk_from, chunk_to)"
+                + " ON t.metadata::jsonb @> jsonb_build_object('source_file', w.source_file)"
+                + " AND (t.metadata::jsonb->>'chunk_index')::int BETWEEN w.chunk_from AND w.chunk_to";
+
+        List<Document> documents = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("text", windows.stream().map(Window::sourceFile).toArray()));
+            statement.setArray(2, connection.createArrayOf("int4", windows.stream().map(Window::from).toArray()));
+            statement.setArray(3, connection.createArrayOf("int4", windows.stream().map(Window::to).toArray()));
+            return statement;
+        }, rs -> {
+            try {
+                Map<String, Object> metadata = objectMapper.readValue(rs.getString("metadata"),
+                        new TypeReference<Map<String, Object>>() { });
+                documents.add(new Document(rs.getString("id"), rs.getString("content"), metadata));
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot read document row " + rs.getString("id"), e);
+            }
+        });
+        return documents;
+    }
+
+    private static boolean contains(Window window, Map<String, Object> metadata) {
+        return window.sourceFile().equals(String.valueOf(metadata.get("source_file")))
+                && metadata.get("chunk_index") instanceof Number chunkIndex
+                && chunkIndex.intValue() >= window.from() && chunkIndex.intValue() <= window.to();
+    }
+}
@@ -0,0 +1,156 @@
+package com.new_ai.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.util.JacksonUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+// 대량 적재용: PgVectorStore의 INSERT 배치 대신 COPY ... FROM STDIN (FORMAT BINARY)로 행을 스트리밍
+@Service
+public class PgVectorBulkWriter {
+
+    // PostgreSQL binary COPY 헤더: 시그니처 11바이트 + flags(int32) + 헤더 확장 길이(int32)
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Value("${rag.ingest.bulk-copy.enabled:false}")
+    private boolean enabled;
+
+    @Value("${rag.vectorstore.mode:pgvector}")
+    private String vectorStoreMode;
+
+    @Value("${spring.ai.vectorstore.pgvector.schema-name:public}")
+    private String schemaName;
+
+    @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}")
+    private String tableName;
+
+    // PgVectorStore와 같은 방식으로 metadata를 직렬화
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModules(JacksonUtils.instantiateAvailableModules())
+            .build();
+
+    // PostgreSQL이 원본인 경우에만 COPY 경로 사용 (local 모드에서는 VectorStore.add로 처리)
+    // replica 모드의 복제본은 DocumentsChangedEvent로 따라온다
+    public boolean isEnabled() {
+        return enabled && isAvailable();
+    }
+
+    public boolean isAvailable() {
+        return !"local".equalsIgnoreCase(vectorStoreMode);
+    }
+
+    public void write(List<Document> documents) {
+        write(documents, tableName);
+    }
+
+    public void write(List<Document> documents, String targetTable) {
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        // 임베딩은 배치 단위로 한 번에 요청 (캐시 decorator를 거침)
+        List<float[]> embeddings = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+
+        String table = schemaName + "." + targetTable;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                // 같은 id가 이미 있으면 먼저 지운다 (PgVectorStore의 ON CONFLICT DO UPDATE와 같은 결과)
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE id = ANY(?)")) {
+                    UUID[] ids = documents.stream().map(doc -> UUID.fromString(doc.getId())).toArray(UUID[]::new);
+                    delete.setArray(1, connection.createArrayOf("uuid", ids));
+                    delete.executeUpdate();
+                }
+
+                copy(connection, table, documents, embeddings);
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Bulk COPY into " + table + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void copy(Connection connection, String table, List<Document> documents, List<float[]> embeddings)
+            throws SQLException, IOException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        String sql = "COPY " + table + " (id, content, metadata, embedding) FROM STDIN (FORMAT BINARY)";
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new PGCopyOutputStream(pgConnection, sql), 65536))) {
+            out.write(COPY_SIGNATURE);
+            out.writeInt(0);
+            out.writeInt(0);
+
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                float[] embedding = embeddings.get(i);
+
+                out.writeShort(4);
+
+                // uuid: 16바이트
+                UUID id = UUID.fromString(document.getId());
+                out.writeInt(16);
+                out.writeLong(id.getMostSignificantBits());
+                out.writeLong(id.getLeastSignificantBits());
+
+                // text / json: UTF-8 바이트 그대로
+                writeBytes(out, document.getText().getBytes(StandardCharsets.UTF_8));
+                writeBytes(out, toJson(document).getBytes(StandardCharsets.UTF_8));
+
+                // vector: int16 차원 수 + int16 unused + float4 * 차원 수
+                out.writeInt(4 + embedding.length * Float.BYTES);
+                out.writeShort(embedding.length);
+                out.writeShort(0);
+                for (float value : embedding) {
+                    out.writeFloat(value);
+                }
+            }
+
+            // 파일 끝 표시
+            out.writeShort(-1);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String toJson(Document document) {
+        try {
+            return objectMapper.writeValueAsString(document.getMetadata());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Metadata of document " + document.getId() + " is not serializable", e);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.new_ai.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 저정밀도 벡터(halfvec 또는 binary)로 후보를 넓게 뽑고, 원본 float 벡터로 정확한 거리 재정렬
+// 양자화 인덱스는 embedding 컬럼에 대한 식 인덱스라 테이블 구조는 바뀌지 않음
+@Service
+public class QuantizedVectorSearch {
+
+    public enum Quantization {
+        NONE, HALFVEC, BINARY
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Value("${rag.search.quantization:none}")
+    private String quantization;
+
+    // 1단계 후보 수 = topK * rerank-factor
+    @Value("${rag.search.rerank-factor:4}")
+    private int rerankFactor;
+
+    @Value("${rag.vectorstore.mode:pgvector}")
+    private String vectorStoreMode;
+
+    @Value("${spring.ai.vectorstore.pgvector.schema-name:public}")
+    private String schemaName;
+
+    @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}")
+    private String tableName;
+
+    @Value("${spring.ai.vectorstore.pgvector.dimensions:768}")
+    private int dimensions;
+
+    @Value("${spring.ai.vectorstore.pgvector.distance-type:COSINE_DISTANCE}")
+    private String distanceType;
+
+    private final PgVectorFilterExpressionConverter filterConverter = new PgVectorFilterExpressionConverter();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<Quantization> readyIndexes = ConcurrentHashMap.newKeySet();
+
+    public Quantization getQuantization() {
+        return Quantization.valueOf(quantization.toUpperCase(Locale.ROOT));
+    }
+
+    // replica/local 모드에서는 프로세스 내 저장소가 검색을 담당하므로 PostgreSQL 전용 경로는 pgvector 모드에서만 사용
+    public boolean isEnabled() {
+        return getQuantization() != Quantization.NONE && "pgvector".equalsIgnoreCase(vectorStoreMode);
+    }
+
+    public List<Document> similaritySearch(String query, int topK, double threshold, Filter.Expression filter) {
+        Quantization mode = getQuantization();
+        ensureIndex(mode);
+        return search(embeddingModel.embed(query), mode, topK, topK * Math.max(1, rerankFactor), threshold, filter);
+    }
+
+    public List<Document> search(float[] embedding, Quantization mode, int topK, int candidates,
+                                 double threshold, Filter.Expression filter) {
+        String vector = toVectorLiteral(embedding);
+        String table = schemaName + "." + tableName;
+        // 필터 값은 요청에서 그대로 들어오므로 jsonpath는 SQL에 넣지 않고 파라미터로 전달
+        String jsonPath = filter != null ? filterConverter.convertExpression(filter) : null;
+        String where = jsonPath != null ? " WHERE metadata::jsonb @@ ?::jsonpath" : "";
+        String exact = "embedding " + exactOperator() + " ?::vector";
+
+        List<Object> args = new ArrayList<>();
+        String sql;
+        if (mode == Quantization.NONE) {
+            sql = "SELECT id, content, metadata, " + exact + " AS distance FROM " + table + where
+                    + " ORDER BY distance LIMIT ?";
+            args.add(vector);
+            if (jsonPath != null) {
+                args.add(jsonPath);
+            }
+            args.add(topK);
+        } else {
+            // 1단계: 양자화 인덱스로 후보 추출 -> 2단계: float 벡터로 정확한 거리 계산 후 재정렬
+            sql = "SELECT id, content, metadata, distance FROM ("
+                    + " SELECT id, content, metadata, " + exact + " AS distance FROM ("
+                    + "  SELECT id, content, metadata, embedding FROM " + table + where
+                    + "  ORDER BY " + quantizedOrderBy(mode) + " LIMIT ?"
+                    + " ) candidates"
+                    + ") ranked ORDER BY distance LIMIT ?";
+            args.add(vector);
+            if (jsonPath != null) {
+                args.add(jsonPath);
+            }
+            args.add(vector);
+            args.add(candidates);
+            args.add(topK);
+        }
+
+        List<Document> documents = new ArrayList<>();
+        jdbcTemplate.query(sql, rs -> {
+            double distance = rs.getDouble("distance");
+            double score = 1 - distance;
+            if (score < threshold) {
+                return;
+            }
+            Map<String, Object> metadata = parseMetadata(rs.getString("metadata"));
+            metadata.put("distance", (float) distance);
+            documents.add(Document.builder()
+                    .id(rs.getString("id"))
+                    .text(rs.getString("content"))
+                    .metadata(metadata)
+                    .score(score)
+                    .build());
+        }, args.toArray());
+        return documents;
+    }
+
+    // 정확한 결과(인덱스 미사용)를 기준으로 각 설정의 recall@k와 지연 시간 측정
+    public Map<String, Object> report(List<String> queries, int topK, List<Integer> rerankFactors) {
+        List<float[]> embeddings = embeddingModel.embed(queries);
+        String table = schemaName + "." + tableName;
+
+        List<List<String>> truth = new ArrayList<>();
+        for (float[] embedding : embeddings) {
+            truth.add(exactIds(embedding, topK));
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        results.add(measure("hnsw-float", Quantization.NONE, 1, embeddings, truth, topK));
+        for (Quantization mode : List.of(Quantization.HALFVEC, Quantization.BINARY)) {
+            for (int factor : rerankFactors) {
+                Map<String, Object> result = measure(mode.name().toLowerCase(Locale.ROOT) + "-rerank-x" + factor,
+                        mode, factor, embeddings, truth, topK);
+                result.put("indexed", indexExists(indexName(tableName, mode)));
+                results.add(result);
+            }
+        }
+
+        Map<String, Object> sizes = new LinkedHashMap<>();
+        sizes.put("tableBytes", relationSize(table));
+        sizes.put("hnswFloatIndexBytes", relationSize(schemaName + "." + VectorIndexRebuilder.vectorIndexName(tableName)));
+        sizes.put("halfvecIndexBytes", relationSize(schemaName + "." + indexName(tableName, Quantization.HALFVEC)));
+        sizes.put("binaryIndexBytes", relationSize(schemaName + "." + indexName(tableName, Quantization.BINARY)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("queries", queries.size());
+        report.put("topK", topK);
+        report.put("configured", quantization);
+        report.put("results", results);
+        report.put("sizes", sizes);
+        return report;
+    }
+
+    private Map<String, Object> measure(String name, Quantization mode, int factor, List<float[]> embeddings,
+                                        List<List<String>> truth, int topK) {
+        double recallSum = 0;
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < embeddings.size(); i++) {
+            long start = System.nanoTime();
+            List<String> ids = mode == Quantization.NONE
+                    ? hnswIds(embeddings.get(i), topK)
+                    : search(embeddings.get(i), mode, topK, topK * factor, -1, null).stream().map(Document::getId).toList();
+            latencies.add(System.nanoTime() - start);
+
+            Set<String> expected = new HashSet<>(truth.get(i));
+            long found = ids.stream().filter(expected::contains).count();
+            recallSum += expected.isEmpty() ? 1 : (double) found / expected.size();
+        }
+        latencies.sort(Long::compare);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", name);
+        result.put("recall", embeddings.isEmpty() ? 0 : recallSum / embeddings.size());
+        result.put("avgLatencyMs", latencies.stream().mapToLong(Long::longValue).average().orElse(0) / 1_000_000.0);
+        result.put("p95LatencyMs", latencies.isEmpty() ? 0 : latencies.get((int) Math.ceil(latencies.size() * 0.95) - 1) / 1_000_000.0);
+        return result;
+    }
+
+    // "+ 0"으로 식을 바꿔 인덱스를 타지 않게 해서 정확한 순위를 구함
+    private List<String> exactIds(float[] embedding, int topK) {
+        return jdbcTemplate.queryForList("SELECT id::text FROM " + schemaName + "." + tableName
+                + " ORDER BY (embedding " + exactOperator() + " ?::vector) + 0 LIMIT ?",
+                String.class, toVectorLiteral(embedding), topK);
+    }
+
+    private List<String> hnswIds(float[] embedding, int topK) {
+        return jdbcTemplate.queryForList("SELECT id::text FROM " + schemaName + "." + tableName
+                + " ORDER BY embedding " + exactOperator() + " ?::vector LIMIT ?",
+                String.class, toVectorLiteral(embedding), topK);
+    }
+
+    public void ensureIndex(Quantization mode) {
+        if (mode == Quantization.NONE || readyIndexes.contains(mode)) {
+            return;
+        }
+        synchronized (this) {
+            if (readyIndexes.contains(mode)) {
+                return;
+            }
+            // 실패하면 다음 검색에서 다시 시도
+            try {
+                jdbcTemplate.execute(createIndexSql(tableName, indexName(tableName, mode), mode)
+                        .replace("CREATE INDEX ", "CREATE INDEX IF NOT EXISTS "));
+                readyIndexes.add(mode);
+            } catch (Exception e) {
+                System.err.println("Quantized index (" + mode + ") not created, searching without it: " + e.getMessage());
+            }
+        }
+    }
+
+    // VectorIndexRebuilder에서 staging 테이블에 같은 인덱스를 만들 때도 사용
+    public String createIndexSql(String targetTable, String indexName, Quantization mode) {
+        String expression = switch (mode) {
+            case HALFVEC -> "(embedding::halfvec(" + dimensions + ")) halfvec_" + operatorSuffix();
+            case BINARY -> "(binary_quantize(embedding)::bit(" + dimensions + ")) bit_hamming_ops";
+            case NONE -> throw new IllegalArgumentException("No quantized index for NONE");
+        };
+        return "CREATE INDEX " + indexName + " ON " + schemaName + "." + targetTable + " USING hnsw (" + expression + ")";
+    }
+
+    public String indexName(String table, Quantization mode) {
+        return table + "_" + mode.name().toLowerCase(Locale.ROOT) + "_idx";
+    }
+
+    private String quantizedOrderBy(Quantization mode) {
+        return switch (mode) {
+            case HALFVEC -> "embedding::halfvec(" + dimensions + ") " + exactOperator() + " ?::halfvec(" + dimensions + ")";
+            case BINARY -> "binary_quantize(embedding)::bit(" + dimensions + ") <~> binary_quantize(?::vector)";
+            case NONE -> throw new IllegalArgumentException("No quantized order for NONE");
+        };
+    }
+
+    private String exactOperator() {
+        return switch (distanceType.toUpperCase(Locale.ROOT)) {
+            case "EUCLIDEAN_DISTANCE" -> "<->";
+            case "NEGATIVE_INNER_PRODUCT" -> "<#>";
+            default -> "<=>";
+        };
+    }
+
+    private String operatorSuffix() {
+        return switch (distanceType.toUpperCase(Locale.ROOT)) {
+            case "EUCLIDEAN_DISTANCE" -> "l2_ops";
+            case "NEGATIVE_INNER_PRODUCT" -> "ip_ops";
+            default -> "cosine_ops";
+        };
+    }
+
+    private boolean indexExists(String indexName) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, schemaName + "." + indexName));
+    }
+
+    private Long relationSize(String relation) {
+        return jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN to_regclass(?) IS NULL THEN NULL ELSE pg_relation_size(to_regclass(?)) END",
+                Long.class, relation, relation);
+    }
+
+    private Map<String, Object> parseMetadata(String json) {
+        try {
+            return json == null ? new HashMap<>() : objectMapper.readValue(json, new TypeReference<HashMap<String, Object>>() { });
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid document metadata: " + e.getMessage(), e);
+        }
+    }
+
+    private static String toVectorLiteral(float[] embedding) {
+        StringBuilder builder = new StringBuilder(embedding.length * 12).append('[');
+        for (int i = 0; i < embedding.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(embedding[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,212 @@
+package com.new_ai.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// PostgreSQL을 원본으로 두고, 검색은 프로세스 안의 LocalVectorStore 복제본에서 처리
+// 복제본 동기화가 끝나기 전에는 PostgreSQL에서 검색
+public class ReplicaVectorStore implements VectorStore, AutoCloseable {
+
+    private static final int SYNC_BATCH_SIZE = 1000;
+
+    private final PgVectorStore primary;
+    private final LocalVectorStore replica;
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile boolean synced = false;
+
+    // 전체 복사 중에 들어온 추가/삭제는 모아 두었다가 복사 후 순서대로 반영 (syncLock으로 보호)
+    private final Object syncLock = new Object();
+    private final List<DocumentsChangedEvent> pendingEvents = new ArrayList<>();
+    private boolean syncing = false;
+    private boolean resyncRequested = false;
+
+    public ReplicaVectorStore(PgVectorStore primary, LocalVectorStore replica, JdbcTemplate jdbcTemplate, String table) {
+        this.primary = primary;
+        this.replica = replica;
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+    }
+
+    @Override
+    public String getName() {
+        return "ReplicaVectorStore";
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        primary.add(documents);
+        // 방금 계산한 임베딩이라 복제본 추가 시에는 임베딩 캐시에서 바로 나온다
+        replica.add(documents);
+    }
+
+    @Override
+    public Optional<Boolean> delete(List<String> ids) {
+        Optional<Boolean> result = primary.delete(ids);
+        replica.delete(ids);
+        return result;
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return synced ? replica.similaritySearch(request) : primary.similaritySearch(request);
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public int getReplicaSize() {
+        return replica.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startSync();
+    }
+
+    // 다른 경로(COPY 적재, 테이블 교체 등)로 바뀐 내용도 복제본에 반영 (검색 캐시 무효화보다 먼저 실행)
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDocumentsChanged(DocumentsChangedEvent event) {
+        synchronized (syncLock) {
+            if (event.isAllChanged()) {
+                startSync();
+                return;
+            }
+            if (syncing) {
+                pendingEvents.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(DocumentsChangedEvent event) {
+        if (!event.getRemovedIds().isEmpty()) {
+            replica.delete(List.copyOf(event.getRemovedIds()));
+        }
+        List<Document> missing = event.getAdded().stream()
+                .filter(document -> !replica.contains(document.getId()))
+                .toList();
+        if (!missing.isEmpty()) {
+            replica.add(missing);
+        }
+    }
+
+    private void startSync() {
+        synchronized (syncLock) {
+            if (syncing) {
+                // 이미 복사 중이면 끝난 뒤 처음부터 다시 (모아 둔 변경은 새 복사에 포함됨)
+                resyncRequested = true;
+                return;
+            }
+            syncing = true;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                boolean again;
+                do {
+                    syncFromPrimary();
+                    again = replayPendingEvents();
+                } while (again);
+            } catch (Exception e) {
+                System.err.println("Vector store replica sync failed, searching PostgreSQL: " + e.getMessage());
+                synchronized (syncLock) {
+                    syncing = false;
+                    resyncRequested = false;
+                    pendingEvents.clear();
+                }
+            }
+        }, "vector-replica-sync");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 복사 중에 들어온 변경을 반영하고 (반영하는 동안 들어온 것도 이어서) 동기화 완료 처리
+    // 그 사이 전체 변경이 있었으면 true (다시 전체 복사)
+    private boolean replayPendingEvents() {
+        while (true) {
+            List<DocumentsChangedEvent> events;
+            synchronized (syncLock) {
+                if (resyncRequested) {
+                    resyncRequested = false;
+                    pendingEvents.clear();
+                    return true;
+                }
+                if (pendingEvents.isEmpty()) {
+                    syncing = false;
+                    synced = true;
+                    return false;
+                }
+                events = new ArrayList<>(pendingEvents);
+                pendingEvents.clear();
+            }
+            events.forEach(this::apply);
+        }
+    }
+
+    private void syncFromPrimary() {
+        long start = System.currentTimeMillis();
+        List<Document> documents = new ArrayList<>(SYNC_BATCH_SIZE);
+        List<float[]> embeddings = new ArrayList<>(SYNC_BATCH_SIZE);
+
+        synced = false;
+        replica.clear();
+        jdbcTemplate.query("SELECT id, content, metadata, embedding::text AS embedding FROM " + table, rs -> {
+            try {
+                Map<String, Object> metadata = objectMapper.readValue(rs.getString("metadata"),
+                        new TypeReference<Map<String, Object>>() { });
+                documents.add(new Document(rs.getString("id"), rs.getString("content"), metadata));
+                embeddings.add(parseVector(rs.getString("embedding")));
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot read vector row " + rs.getString("id"), e);
+            }
+            if (documents.size() >= SYNC_BATCH_SIZE) {
+                replica.add(documents, embeddings);
+                documents.clear();
+                embeddings.clear();
+            }
+        });
+        if (!documents.isEmpty()) {
+            replica.add(documents, embeddings);
+        }
+        System.out.println("Vector store replica synced: " + replica.size() + " documents in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    // pgvector 텍스트 표현 "[0.1,0.2,...]"
+    private static float[] parseVector(String text) {
+        String body = text.substring(1, text.length() - 1);
+        if (body.isEmpty()) {
+            return new float[0];
+        }
+        String[] parts = body.split(",");
+        float[] vector = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            vector[i] = Float.parseFloat(parts[i]);
+        }
+        return vector;
+    }
+
+    @Override
+    public void close() throws Exception {
+        replica.close();
+    }
+}
@@ -0,0 +1,213 @@
+package com.new_ai.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 검색 결과 캐시 (정규화된 질의 + worldType + topK + threshold 기준, TTL + LRU)
+// 문서가 추가되면 그 문서가 결과에 들어갈 수 있는 항목만, 삭제되면 그 문서를 담은 항목만 무효화
+@Component
+public class RetrievalCache {
+
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Value("${rag.retrieval.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rag.retrieval.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // 한 번에 이보다 많은 문서가 추가되면 항목별 비교 대신 전체 비움
+    @Value("${rag.retrieval.cache.max-invalidation-batch:512}")
+    private int maxInvalidationBatch;
+
+    public record Key(String query, RetrievalFilter filter, int topK, double threshold) {
+
+        public static Key of(String query, RetrievalFilter filter, int topK, double threshold) {
+            String normalized = query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+            return new Key(normalized, filter, topK, threshold);
+        }
+    }
+
+    private record Entry(float[] queryEmbedding, List<Document> documents, long expiresAtNanos) {
+    }
+
+    private final Map<Key, Entry> entries;
+    // 문서 변경이 있을 때마다 증가 (검색 시작 이후 변경이 있었으면 결과를 캐시에 넣지 않음)
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public RetrievalCache(@Value("${rag.retrieval.cache.max-entries:1000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public List<Document> get(Key key) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+                hits.incrementAndGet();
+                return entry.documents();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    // 무효화 때 다시 임베딩하지 않도록 질의 임베딩을 함께 보관 (방금 검색한 질의라 임베딩 캐시에서 바로 나온다)
+    public void put(Key key, String query, List<Document> documents, long searchGeneration) {
+        if (!enabled || generation.get() != searchGeneration) {
+            return;
+        }
+        float[] queryEmbedding;
+        try {
+            queryEmbedding = embeddingModel.embed(query);
+        } catch (Exception e) {
+            System.err.println("Retrieval cache skipped, query embedding failed: " + e.getMessage());
+            return;
+        }
+        synchronized (entries) {
+            if (generation.get() != searchGeneration) {
+                return;
+            }
+            long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds);
+            entries.put(key, new Entry(queryEmbedding, List.copyOf(documents), expiresAt));
+        }
+    }
+
+    @EventListener
+    public void onDocumentsChanged(DocumentsChangedEvent event) {
+        generation.incrementAndGet();
+
+        Map<Key, Entry> snapshot;
+        synchronized (entries) {
+            if (entries.isEmpty()) {
+                return;
+            }
+            if (event.isAllChanged() || event.getAdded().size() > maxInvalidationBatch) {
+                clear();
+                return;
+            }
+            snapshot = new HashMap<>(entries);
+        }
+
+        Set<Key> stale = new HashSet<>();
+        collectRemoved(snapshot, event.getRemovedIds(), stale);
+        try {
+            collectReachable(snapshot, event.getAdded(), stale);
+        } catch (Exception e) {
+            System.err.println("Retrieval cache invalidation failed, clearing cache: " + e.getMessage());
+            clear();
+            return;
+        }
+
+        synchronized (entries) {
+            for (Key key : stale) {
+                if (entries.remove(key) != null) {
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void collectRemoved(Map<Key, Entry> snapshot, Collection<String> removedIds, Set<Key> stale) {
+        if (removedIds.isEmpty()) {
+            return;
+        }
+        Set<String> removed = new HashSet<>(removedIds);
+        snapshot.forEach((key, entry) -> {
+            for (Document document : entry.documents()) {
+                if (removed.contains(document.getId())) {
+                    stale.add(key);
+                    return;
+                }
+            }
+        });
+    }
+
+    // 추가된 문서가 필터를 통과하고 캐시된 질의와의 유사도가 threshold 이상이면 검색 결과가 달라질 수 있음
+    private void collectReachable(Map<Key, Entry> snapshot, List<Document> added, Set<Key> stale) {
+        if (added.isEmpty()) {
+            return;
+        }
+        // 질의 임베딩은 항목에 보관돼 있으므로 추가된 문서만 임베딩 (방금 저장된 문서라 대부분 임베딩 캐시에서 나온다)
+        List<String> texts = new ArrayList<>(added.size());
+        added.forEach(document -> texts.add(document.getText()));
+        List<float[]> embeddings = embeddingModel.embed(texts);
+
+        snapshot.forEach((key, entry) -> {
+            for (int j = 0; j < added.size(); j++) {
+                if (key.filter().matches(added.get(j).getMetadata())
+                        && cosineSimilarity(entry.queryEmbedding(), embeddings.get(j)) >= key.threshold()) {
+                    stale.add(key);
+                    return;
+                }
+            }
+        });
+    }
+
+    private static double cosineSimilarity(float[] a, float[] b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA > 0 && normB > 0 ? dot / Math.sqrt(normA * normB) : 0;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hit = hits.get();
+        long miss = misses.get();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("enabled", enabled);
+        stats.put("hits", hit);
+        stats.put("misses", miss);
+        stats.put("invalidations", invalidations.get());
+        stats.put("hitRate", hit + miss > 0 ? (double) hit / (hit + miss) : 0.0);
+        return stats;
+    }
+}
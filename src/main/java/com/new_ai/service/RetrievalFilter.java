@@ -0,0 +1,110 @@
+package com.new_ai.service;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// 검색 메타데이터 필터 (null이면 조건 없음, worldType "all"도 조건 없음)
+// world_type: 지정한 세계관 또는 "all" 문서, tags: 하나라도 포함
+public record RetrievalFilter(String worldType, String type, String category, List<String> tags) {
+
+    public static final RetrievalFilter NONE = new RetrievalFilter(null, null, null, List.of());
+
+    public RetrievalFilter {
+        worldType = normalize(worldType);
+        if ("all".equalsIgnoreCase(worldType)) {
+            worldType = null;
+        }
+        type = normalize(type);
+        category = normalize(category);
+        tags = tags == null ? List.of() : tags.stream()
+                .map(RetrievalFilter::normalize)
+                .filter(tag -> tag != null)
+                .toList();
+    }
+
+    public static RetrievalFilter worldType(String worldType) {
+        return new RetrievalFilter(worldType, null, null, List.of());
+    }
+
+    // tags는 쉼표로 구분된 문자열
+    public static RetrievalFilter of(String worldType, String type, String category, String tags) {
+        return new RetrievalFilter(worldType, type, category,
+                tags == null ? List.of() : Arrays.asList(tags.split(",")));
+    }
+
+    public boolean isEmpty() {
+        return worldType == null && type == null && category == null && tags.isEmpty();
+    }
+
+    // Spring AI 필터 식으로 변환 (pgvector에서는 metadata::jsonb @@ jsonpath로 SQL에 포함됨)
+    public Filter.Expression toExpression() {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        List<FilterExpressionBuilder.Op> conditions = new ArrayList<>();
+        if (worldType != null) {
+            conditions.add(b.in("world_type", worldType, "all"));
+        }
+        if (type != null) {
+            conditions.add(b.eq("type", type));
+        }
+        if (category != null) {
+            conditions.add(b.eq("category", category));
+        }
+        if (!tags.isEmpty()) {
+            conditions.add(b.in("tags", tags.toArray()));
+        }
+        if (conditions.isEmpty()) {
+            return null;
+        }
+
+        FilterExpressionBuilder.Op expression = conditions.get(0);
+        for (int i = 1; i < conditions.size(); i++) {
+            expression = b.and(expression, conditions.get(i));
+        }
+        return expression.build();
+    }
+
+    // 같은 조건을 메모리에서 평가 (캐시 무효화 등에서 사용)
+    public boolean matches(Map<String, Object> metadata) {
+        if (worldType != null) {
+            Object docWorldType = metadata.getOrDefault("world_type", "all");
+            if (!worldType.equals(docWorldType) && !"all".equals(docWorldType)) {
+                return false;
+            }
+        }
+        if (type != null && !type.equals(metadata.get("type"))) {
+            return false;
+        }
+        if (category != null && !category.equals(metadata.get("category"))) {
+            return false;
+        }
+        if (!tags.isEmpty()) {
+            Object docTags = metadata.get("tags");
+            if (docTags instanceof Collection<?> values) {
+                return values.stream().anyMatch(tag -> tags.contains(String.valueOf(tag)));
+            }
+            return docTags != null && tags.contains(String.valueOf(docTags));
+        }
+        return true;
+    }
+
+    // 필터 값은 jsonpath 문자열로 SQL에 들어가므로(pgvector 기본 경로는 이스케이프 없음) 따옴표/역슬래시/제어 문자는 거부
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == '\'' || c == '"' || c == '\\' || Character.isISOControl(c)) {
+                throw new IllegalArgumentException("Invalid filter value: " + trimmed);
+            }
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,200 @@
+package com.new_ai.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// 전체 재적재용: 인덱스 없는 staging 테이블에 적재 -> HNSW를 한 번에 생성 -> 기존 테이블과 원자적으로 교체
+// 교체 전까지 검색은 기존 테이블과 기존 인덱스를 그대로 사용한다
+@Service
+public class VectorIndexRebuilder {
+
+    // PgVectorStore가 만드는 인덱스 이름 (기본 테이블이 아니면 "<table>_index")
+    public static String vectorIndexName(String table) {
+        return "vector_store".equals(table) ? "spring_ai_vector_index" : table + "_index";
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QuantizedVectorSearch quantizedVectorSearch;
+    
+    @Autowired
+    private VectorStoreIndexes vectorStoreIndexes;
+
+    @Value("${spring.ai.vectorstore.pgvector.schema-name:public}")
+    private String schemaName;
+
+    @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}")
+    private String tableName;
+
+    @Value("${spring.ai.vectorstore.pgvector.index-type:HNSW}")
+    private String indexType;
+
+    @Value("${spring.ai.vectorstore.pgvector.distance-type:COSINE_DISTANCE}")
+    private String distanceType;
+
+    @Value("${rag.ingest.rebuild.maintenance-work-mem:1GB}")
+    private String maintenanceWorkMem;
+
+    @Value("${rag.ingest.rebuild.parallel-workers:4}")
+    private int parallelWorkers;
+
+    public String getStagingTable() {
+        return tableName + "_staging";
+    }
+
+    public void createStagingTable() {
+        String staging = qualified(getStagingTable());
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + staging);
+        // 벡터 인덱스 없이 컬럼/기본값만 복사 (PK는 재적재 중 upsert용으로 유지)
+        jdbcTemplate.execute("CREATE TABLE " + staging + " (LIKE " + qualified(tableName) + " INCLUDING DEFAULTS)");
+        jdbcTemplate.execute("ALTER TABLE " + staging + " ADD PRIMARY KEY (id)");
+    }
+
+    public void dropStagingTable() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + qualified(getStagingTable()));
+    }
+
+    // 이번 재적재 대상이 아닌 행(다른 디렉토리, 테스트 문서 등)을 staging으로 복사
+    public int copyRetainedRows(Collection<String> replacedIds, Collection<String> replacedSourcePaths) {
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection ->
+                copyRetainedRows(connection, replacedIds, replacedSourcePaths));
+    }
+
+    public void buildIndex() {
+        List<String> statements = new ArrayList<>();
+        if (!"NONE".equalsIgnoreCase(indexType)) {
+            statements.add("CREATE INDEX " + getStagingTable() + "_embedding_idx ON " + qualified(getStagingTable())
+                    + " USING " + indexType.toLowerCase() + " (embedding " + operatorClass() + ")");
+        }
+        // 메타데이터 필터(GIN) 인덱스도 staging에서 만들어 교체 후에도 필터 검색/인접 청크 조회가 인덱스를 사용
+        if (vectorStoreIndexes.isMetadataIndexEnabled()) {
+            statements.add(vectorStoreIndexes.createMetadataIndexSql(getStagingTable(),
+                    vectorStoreIndexes.metadataIndexName(getStagingTable())));
+        }
+        // 양자화 검색을 켠 경우 그 인덱스도 staging에서 같이 만들어 교체 직후부터 사용
+        QuantizedVectorSearch.Quantization quantization = quantizedVectorSearch.getQuantization();
+        if (quantization != QuantizedVectorSearch.Quantization.NONE) {
+            statements.add(quantizedVectorSearch.createIndexSql(getStagingTable(),
+                    quantizedVectorSearch.indexName(getStagingTable(), quantization), quantization));
+        }
+        if (statements.isEmpty()) {
+            return;
+        }
+
+        // 세션 설정은 같은 커넥션에서만 유효하므로 인덱스 생성 후 풀에 돌려주기 전에 원복
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET maintenance_work_mem = '" + maintenanceWorkMem.replace("'", "") + "'");
+                statement.execute("SET max_parallel_maintenance_workers = " + parallelWorkers);
+                for (String sql : statements) {
+                    long start = System.currentTimeMillis();
+                    statement.execute(sql);
+                    System.out.println("Built index on " + getStagingTable()
+                            + " in " + (System.currentTimeMillis() - start) + "ms: " + sql);
+                }
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("RESET maintenance_work_mem");
+                    statement.execute("RESET max_parallel_maintenance_workers");
+                }
+            }
+            return null;
+        });
+    }
+
+    // 잠금 후 그 사이 바뀐 보존 행을 다시 맞추고, 테이블/인덱스 이름을 한 트랜잭션에서 교체
+    public void swap(Collection<String> replacedIds, Collection<String> replacedSourcePaths, Collection<String> writtenIds) {
+        String live = qualified(tableName);
+        String staging = qualified(getStagingTable());
+        String old = tableName + "_old";
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOCK TABLE " + live + " IN ACCESS EXCLUSIVE MODE");
+
+                // 재적재 중 기존 테이블에서 삭제된 보존 행 제거 + 새로 추가된 보존 행 복사
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + staging + " s"
+                        + " WHERE NOT (s.id::text = ANY (?))"
+                        + " AND NOT EXISTS (SELECT 1 FROM " + live + " l WHERE l.id = s.id)")) {
+                    delete.setArray(1, connection.createArrayOf("text", writtenIds.toArray()));
+                    delete.executeUpdate();
+                }
+                copyRetainedRows(connection, replacedIds, replacedSourcePaths);
+
+                statement.execute("DROP TABLE IF EXISTS " + qualified(old));
+                statement.execute("ALTER TABLE " + live + " RENAME TO " + old);
+                statement.execute("ALTER TABLE " + staging + " RENAME TO " + tableName);
+                statement.execute("DROP TABLE " + qualified(old));
+                if (!"NONE".equalsIgnoreCase(indexType)) {
+                    statement.execute("ALTER INDEX " + qualified(getStagingTable() + "_embedding_idx") + " RENAME TO " + vectorIndexName(tableName));
+                }
+                if (vectorStoreIndexes.isMetadataIndexEnabled()) {
+                    statement.execute("ALTER INDEX " + qualified(vectorStoreIndexes.metadataIndexName(getStagingTable()))
+                            + " RENAME TO " + vectorStoreIndexes.metadataIndexName(tableName));
+                }
+                QuantizedVectorSearch.Quantization quantization = quantizedVectorSearch.getQuantization();
+                if (quantization != QuantizedVectorSearch.Quantization.NONE) {
+                    statement.execute("ALTER INDEX " + qualified(quantizedVectorSearch.indexName(getStagingTable(), quantization))
+                            + " RENAME TO " + quantizedVectorSearch.indexName(tableName, quantization));
+                }
+                statement.execute("ALTER INDEX " + qualified(getStagingTable() + "_pkey") + " RENAME TO " + tableName + "_pkey");
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    // 같은 파일의 행은 source_path로 비교, source_path가 없는 manifest 도입 이전 행만 파일명으로 비교
+    private int copyRetainedRows(Connection connection, Collection<String> replacedIds,
+                                 Collection<String> replacedSourcePaths) throws SQLException {
+        Object[] fileNames = replacedSourcePaths.stream()
+                .map(path -> Paths.get(path).getFileName().toString())
+                .distinct()
+                .toArray();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + qualified(getStagingTable())
+                + " SELECT * FROM " + qualified(tableName) + " l"
+                + " WHERE NOT (l.id::text = ANY (?))"
+                + " AND NOT (coalesce(l.metadata->>'source_path', '') = ANY (?))"
+                + " AND NOT (l.metadata->>'source_path' IS NULL"
+                + " AND coalesce(l.metadata->>'source_file', l.metadata->>'filename', '') = ANY (?))"
+                + " ON CONFLICT (id) DO NOTHING")) {
+            insert.setArray(1, connection.createArrayOf("text", replacedIds.toArray()));
+            insert.setArray(2, connection.createArrayOf("text", replacedSourcePaths.toArray()));
+            insert.setArray(3, connection.createArrayOf("text", fileNames));
+            return insert.executeUpdate();
+        }
+    }
+
+    private String operatorClass() {
+        return switch (distanceType.toUpperCase()) {
+            case "EUCLIDEAN_DISTANCE" -> "vector_l2_ops";
+            case "NEGATIVE_INNER_PRODUCT" -> "vector_ip_ops";
+            default -> "vector_cosine_ops";
+        };
+    }
+
+    private String qualified(String name) {
+        return schemaName + "." + name;
+    }
+}
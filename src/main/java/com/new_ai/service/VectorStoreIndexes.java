@@ -0,0 +1,82 @@
+package com.new_ai.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// 메타데이터 필터 검색용 준비 (기존 문서 world_type 보정 + GIN 인덱스)
+// 시작 시 실행하고, 실패했으면 (DB가 늦게 뜬 경우 등) 다음 문서 변경 때 다시 시도
+// hnsw.iterative_scan은 커넥션마다 적용돼야 하므로 spring.datasource.hikari.connection-init-sql에서 설정
+@Component
+public class VectorStoreIndexes {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${rag.vectorstore.mode:pgvector}")
+    private String vectorStoreMode;
+
+    @Value("${spring.ai.vectorstore.pgvector.schema-name:public}")
+    private String schemaName;
+
+    @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}")
+    private String tableName;
+
+    @Value("${rag.search.metadata-index.enabled:true}")
+    private boolean metadataIndexEnabled;
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        prepare();
+    }
+
+    @EventListener
+    public void onDocumentsChanged(DocumentsChangedEvent event) {
+        if (!ready) {
+            prepare();
+        }
+    }
+
+    public synchronized void prepare() {
+        if (ready || !isMetadataIndexEnabled()) {
+            return;
+        }
+        String table = schemaName + "." + tableName;
+        try {
+            // world_type이 없는 기존 문서는 모든 세계관에 속하는 것으로 취급
+            int updated = jdbcTemplate.update("UPDATE " + table
+                    + " SET metadata = (metadata::jsonb || '{\"world_type\": \"all\"}'::jsonb)::json"
+                    + " WHERE metadata::jsonb->>'world_type' IS NULL");
+            if (updated > 0) {
+                System.out.println("Set world_type=all on " + updated + " documents without world_type");
+            }
+
+            jdbcTemplate.execute(createMetadataIndexSql(tableName, metadataIndexName(tableName))
+                    .replace("CREATE INDEX ", "CREATE INDEX IF NOT EXISTS "));
+            ready = true;
+        } catch (Exception e) {
+            System.err.println("Metadata index setup failed, retrying on next document change: " + e.getMessage());
+        }
+    }
+
+    // replica/local 모드의 검색은 프로세스 내 저장소가 담당하지만 replica 원본 테이블에는 그대로 유지
+    public boolean isMetadataIndexEnabled() {
+        return metadataIndexEnabled && !"local".equalsIgnoreCase(vectorStoreMode);
+    }
+
+    // PgVectorStore 필터 SQL(metadata::jsonb @@ jsonpath)과 같은 식으로 GIN 인덱스 생성
+    // VectorIndexRebuilder에서 staging 테이블에 같은 인덱스를 만들 때도 사용
+    public String createMetadataIndexSql(String targetTable, String indexName) {
+        return "CREATE INDEX " + indexName + " ON " + schemaName + "." + targetTable
+                + " USING gin ((metadata::jsonb) jsonb_path_ops)";
+    }
+
+    public String metadataIndexName(String table) {
+        return table + "_metadata_idx";
+    }
+}
@@ -0,0 +1,67 @@
+package com.new_ai.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTests {
+
+    private static Document document(String id, String text, String type) {
+        return new Document(id, text, Map.of("type", type));
+    }
+
+    @Test
+    void matchesKoreanNamesWithParticlesAttached() {
+        Bm25Index index = new Bm25Index(2, 1.2, 0.75);
+        index.add(List.of(
+                document("rio", "닥터리오는 뉴 에덴 캠프의 의사다.", "npc"),
+                document("walker", "워커는 바이러스에 감염된 자들이다.", "monster"),
+                document("farm", "에버그린 농장은 북쪽에 있다.", "location")));
+
+        List<Document> results = index.search("닥터 리오", 3, 1.0, metadata -> true);
+
+        assertEquals(1, results.size());
+        assertEquals("rio", results.get(0).getId());
+        assertNull(results.get(0).getScore());
+        assertTrue((double) results.get(0).getMetadata().get(Bm25Index.SCORE_KEY) > 0);
+    }
+
+    @Test
+    void ranksByTermFrequencyAndAppliesFilterAndRequiredTerms() {
+        Bm25Index index = new Bm25Index(2, 1.2, 0.75);
+        index.add(List.of(
+                document("a", "워커 워커 워커가 몰려온다.", "monster"),
+                document("b", "캠프 근처에서 워커를 보았다.", "location"),
+                document("c", "캠프는 안전하다.", "location")));
+
+        assertEquals(List.of("a", "b"), index.search("워커", 5, 1.0, metadata -> true)
+                .stream().map(Document::getId).toList());
+        assertEquals(List.of("b"), index.search("워커", 5, 1.0, metadata -> "location".equals(metadata.get("type")))
+                .stream().map(Document::getId).toList());
+        assertEquals(List.of("b"), index.search("워커 캠프", 5, 0, Set.of("캠프", "워커"), metadata -> true)
+                .stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void removesAndReplacesDocuments() {
+        Bm25Index index = new Bm25Index(2, 1.2, 0.75);
+        index.add(List.of(document("a", "shotgun 산탄총", "item"), document("b", "산탄총 탄약", "item")));
+
+        index.remove(List.of("a"));
+        assertEquals(List.of("b"), index.search("산탄총", 5, 1.0, metadata -> true)
+                .stream().map(Document::getId).toList());
+        assertTrue(index.search("shotgun", 5, 1.0, metadata -> true).isEmpty());
+
+        index.add(List.of(document("b", "SHOTGUN 정비", "item")));
+        assertEquals(1, index.size());
+        assertTrue(index.search("산탄총", 5, 1.0, metadata -> true).isEmpty());
+        assertEquals("b", index.search("shotgun", 5, 1.0, metadata -> true).get(0).getId());
+    }
+}
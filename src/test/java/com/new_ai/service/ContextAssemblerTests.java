@@ -0,0 +1,64 @@
+package com.new_ai.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextAssemblerTests {
+
+    private static Document chunk(String id, String sourceFile, int index, String text) {
+        return new Document(id, text, Map.of("source_file", sourceFile, "chunk_index", index, "title", sourceFile));
+    }
+
+    @Test
+    void mergesOverlappingNeighboursFromChunker() {
+        DocumentChunker chunker = new DocumentChunker(60, 25);
+        String text = "닥터 리오는 뉴 에덴 캠프의 유일한 의사다. 그는 워커에게 물린 부상자를 치료한다. "
+                + "의약품은 항상 부족하다. 플레이어가 도움을 청하면 대가로 물자를 요구한다. "
+                + "캠프 경비대는 그를 보호한다. 밤에는 진료소 문을 잠근다.";
+        List<String> chunks = chunker.chunk(text);
+
+        // 검색 순서가 뒤섞여 있어도 chunk_index 순으로 합쳐지고 겹친 부분은 한 번만 들어감
+        List<Document> documents = List.of(
+                chunk("b", "NPC_닥터리오", 1, chunks.get(1)),
+                chunk("a", "NPC_닥터리오", 0, chunks.get(0)),
+                chunk("c", "NPC_닥터리오", 2, chunks.get(2)));
+        String context = new ContextAssembler(0.7, 25).assemble(documents, 10_000);
+
+        assertEquals(3, chunks.size());
+        assertEquals("[NPC_닥터리오]\n" + text, context);
+    }
+
+    @Test
+    void prefersDiverseContentOverNearDuplicates() {
+        List<Document> documents = List.of(
+                chunk("a", "워커1", 0, "워커는 소리에 민감하며 무리를 지어 이동한다. 낮에는 건물 안에 숨어 있다."),
+                chunk("b", "워커2", 0, "워커는 소리에 민감하며 무리를 지어 이동한다. 밤에는 건물 밖으로 나온다."),
+                chunk("c", "농장", 0, "에버그린 농장은 북쪽 강가에 있으며 식량을 재배한다."));
+
+        String context = new ContextAssembler(0.5, 200).assemble(documents, 10_000);
+
+        assertTrue(context.indexOf("[농장]") < context.indexOf("[워커2]"));
+    }
+
+    @Test
+    void packsWithinTokenBudget() {
+        String sentence = "뉴 에덴 캠프는 방벽으로 둘러싸여 있다. ";
+        List<Document> documents = List.of(
+                chunk("a", "캠프", 0, sentence.repeat(20)),
+                chunk("b", "농장", 0, "에버그린 농장은 북쪽 강가에 있다."));
+
+        String context = new ContextAssembler(0.7, 200).assemble(documents, 100);
+
+        assertTrue(ContextAssembler.estimateTokens(context) <= 100);
+        assertTrue(context.startsWith("[캠프]\n뉴 에덴 캠프는"));
+        assertTrue(context.endsWith("."));
+        assertFalse(context.contains("[농장]"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.new_ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentChunkerTests {
+
+    @Test
+    void shortContentIsSingleChunk() {
+        DocumentChunker chunker = new DocumentChunker(100, 20);
+
+        List<String> chunks = chunker.chunk("  닥터 리오는 뉴 에덴 캠프의 의사입니다.  ");
+
+        assertEquals(List.of("닥터 리오는 뉴 에덴 캠프의 의사입니다."), chunks);
+    }
+
+    @Test
+    void cutsAtLastKoreanSentenceBoundary() {
+        DocumentChunker chunker = new DocumentChunker(40, 5);
+        String content = "워커는 소리에 반응한다. 밤에는 더 위험하다. 캠프의 문은 해가 지면 닫힌다. 생존자는 무기를 챙긴다.";
+
+        List<String> chunks = chunker.chunk(content);
+
+        assertTrue(chunks.size() > 1);
+        assertTrue(chunks.get(0).endsWith("."), chunks.get(0));
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= 40, chunk);
+        }
+    }
+
+    @Test
+    void textWithoutPunctuationIsFullyCoveredWithOverlap() {
+        DocumentChunker chunker = new DocumentChunker(100, 20);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append((char) ('가' + (i % 100)));
+        }
+
+        List<String> chunks = chunker.chunk(content.toString());
+
+        assertEquals(13, chunks.size());
+        assertEquals(content.substring(0, 100), chunks.get(0));
+        assertEquals(content.substring(80, 180), chunks.get(1));
+        assertTrue(content.toString().endsWith(chunks.get(chunks.size() - 1)));
+    }
+
+    @Test
+    void noTextIsLostAfterEarlySentenceCut() {
+        DocumentChunker chunker = new DocumentChunker(50, 10);
+        String content = "첫 문장은 짧다.\n" + "나".repeat(120) + " 끝";
+
+        List<String> chunks = chunker.chunk(content);
+
+        assertTrue(chunks.get(chunks.size() - 1).endsWith("끝"));
+        assertEquals("첫 문장은 짧다.", chunks.get(0).substring(0, 9));
+    }
+}
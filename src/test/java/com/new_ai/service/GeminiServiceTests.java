@@ -0,0 +1,42 @@
+package com.new_ai.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GeminiServiceTests {
+
+    private final GeminiService geminiService = new GeminiService();
+
+    @Test
+    void requestPartsFormValidJsonWithEscapedPrompt() throws Exception {
+        String prompt = "플레이어 행동: \"좀비를 공격한다\"\n\\응답:";
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] part : geminiService.requestParts(prompt)) {
+            body.write(part);
+        }
+
+        JsonNode request = new ObjectMapper().readTree(body.toByteArray());
+
+        assertEquals(prompt, request.at("/contents/0/parts/0/text").asText());
+        assertEquals(300, request.at("/generationConfig/maxOutputTokens").asInt());
+        assertEquals(0.8, request.at("/generationConfig/topP").asDouble());
+    }
+
+    @Test
+    void parsesResponseTextIgnoringUnknownFields() {
+        String json = """
+                {"candidates":[{"content":{"parts":[{"text":"🧟 워커가 "},{"text":"다가옵니다."}],"role":"model"},
+                "finishReason":"STOP","safetyRatings":[]}],"usageMetadata":{"totalTokenCount":42},"modelVersion":"x"}
+                """;
+
+        assertEquals("🧟 워커가 다가옵니다.",
+                geminiService.parseResponse(json.getBytes(StandardCharsets.UTF_8)).text());
+        assertEquals("", geminiService.parseResponse("{}".getBytes(StandardCharsets.UTF_8)).text());
+    }
+}
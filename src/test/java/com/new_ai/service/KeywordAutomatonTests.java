@@ -0,0 +1,39 @@
+package com.new_ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeywordAutomatonTests {
+
+    @Test
+    void findsOverlappingKeywordsInOnePass() {
+        KeywordAutomaton automaton = new KeywordAutomaton(List.of(
+                List.of("he"), List.of("she"), List.of("hers"), List.of("his")));
+
+        assertEquals(0b0111L, automaton.match("ushers"));
+        assertEquals(0b1000L, automaton.match("this"));
+    }
+
+    @Test
+    void matchesKoreanKeywordsAndIgnoresCase() {
+        KeywordAutomaton automaton = new KeywordAutomaton(List.of(
+                List.of("전투", "피해", "공격"), List.of("의료", "치료"), List.of("NPC")));
+
+        assertEquals(0b001L, automaton.match("워커의 공격은 치명적이다."));
+        assertEquals(0b110L, automaton.match("npc 닥터 리오가 부상자를 치료한다."));
+        assertEquals(0L, automaton.match("평화로운 캠프의 아침."));
+    }
+
+    @Test
+    void carriesPreviouslyFoundGroups() {
+        KeywordAutomaton automaton = new KeywordAutomaton(List.of(List.of("희귀"), List.of("필수")));
+
+        long found = automaton.match("희귀한 의약품", 0L);
+        found = automaton.match("필수 장비", found);
+
+        assertEquals(0b11L, found);
+    }
+}
@@ -0,0 +1,34 @@
+package com.new_ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyHistogramTests {
+
+    @Test
+    void percentileUsesNearestRank() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 10L);
+        }
+
+        assertEquals(500, histogram.percentile(50));
+        assertEquals(950, histogram.percentile(95));
+        assertEquals(1000, histogram.percentile(100));
+    }
+
+    @Test
+    void keepsOnlyMostRecentSamples() {
+        LatencyHistogram histogram = new LatencyHistogram(3);
+        assertEquals(-1, histogram.percentile(95));
+
+        histogram.record(5000);
+        histogram.record(100);
+        histogram.record(200);
+        histogram.record(300);
+
+        assertEquals(3, histogram.size());
+        assertEquals(300, histogram.percentile(100));
+    }
+}
@@ -0,0 +1,52 @@
+package com.new_ai.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LexicalSearchTests {
+
+    private static LexicalSearch lexicalSearch(List<Document> documents) {
+        LexicalSearch lexicalSearch = new LexicalSearch(2, 1.2, 0.75, "npc,location,item");
+        ReflectionTestUtils.setField(lexicalSearch, "enabled", true);
+        ReflectionTestUtils.setField(lexicalSearch, "entityFastPath", true);
+        ReflectionTestUtils.setField(lexicalSearch, "configuredEntities", "");
+        ReflectionTestUtils.setField(lexicalSearch, "loaded", true);
+        lexicalSearch.onDocumentsChanged(DocumentsChangedEvent.added(lexicalSearch, documents));
+        return lexicalSearch;
+    }
+
+    private static Document document(String id, String title, String type, String text) {
+        return new Document(id, text, Map.of("title", title, "type", type));
+    }
+
+    @Test
+    void npcTitleTriggersFastPath() {
+        LexicalSearch lexicalSearch = lexicalSearch(List.of(
+                document("npc", "NPC_닥터리오", "npc", "닥터리오는 뉴 에덴 캠프의 의사다."),
+                document("rule", "규칙_전투", "rule", "전투는 주사위 굴림으로 판정한다.")));
+
+        List<Document> documents = lexicalSearch.entitySearch("닥터리오는 어디 있어?", RetrievalFilter.NONE, 5);
+
+        assertEquals(1, documents.size());
+        assertEquals("npc", documents.get(0).getId());
+    }
+
+    @Test
+    void ruleAndLoreTitlesDoNotTriggerFastPath() {
+        LexicalSearch lexicalSearch = lexicalSearch(List.of(
+                document("rule", "규칙_전투", "rule", "전투는 주사위 굴림으로 판정한다."),
+                document("lore", "세계관_뉴에덴", "lore", "뉴에덴은 생존자들이 세운 도시다."),
+                document("plain", "메모", "general", "메모 내용")));
+
+        assertTrue(lexicalSearch.entitySearch("전투에서 이기려면?", RetrievalFilter.NONE, 5).isEmpty());
+        assertTrue(lexicalSearch.entitySearch("뉴에덴의 역사", RetrievalFilter.NONE, 5).isEmpty());
+        assertTrue(lexicalSearch.entitySearch("메모 보여줘", RetrievalFilter.NONE, 5).isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package com.new_ai.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalVectorStoreTests {
+
+    @TempDir
+    Path directory;
+
+    // 텍스트 안의 a/b/c 개수로 만드는 3차원 임베딩
+    private final EmbeddingModel embeddingModel = new EmbeddingModel() {
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                float[] vector = new float[3];
+                for (char c : text.toCharArray()) {
+                    if (c >= 'a' && c <= 'c') {
+                        vector[c - 'a']++;
+                    }
+                }
+                embeddings.add(new Embedding(vector, embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+    };
+
+    @Test
+    void returnsNearestDocumentsAboveThreshold() throws Exception {
+        try (LocalVectorStore store = new LocalVectorStore(embeddingModel, 3, directory)) {
+            store.add(List.of(
+                    new Document("00000000-0000-0000-0000-000000000001", "aaa", Map.of()),
+                    new Document("00000000-0000-0000-0000-000000000002", "aab", Map.of()),
+                    new Document("00000000-0000-0000-0000-000000000003", "ccc", Map.of())));
+
+            List<Document> results = store.similaritySearch(SearchRequest.builder()
+                    .query("a").topK(5).similarityThreshold(0.5).build());
+
+            assertEquals(List.of("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000002"),
+                    results.stream().map(Document::getId).toList());
+            assertEquals(1.0, results.get(0).getScore(), 1e-6);
+            assertTrue(results.get(0).getMetadata().containsKey("distance"));
+        }
+    }
+
+    @Test
+    void appliesMetadataFilterIncludingListValues() throws Exception {
+        try (LocalVectorStore store = new LocalVectorStore(embeddingModel, 3, directory)) {
+            store.add(List.of(
+                    new Document("00000000-0000-0000-0000-000000000001", "aaa",
+                            Map.of("world_type", "apocalypse", "tags", List.of("combat"))),
+                    new Document("00000000-0000-0000-0000-000000000002", "aab",
+                            Map.of("world_type", "fantasy", "tags", List.of("combat", "rare"))),
+                    new Document("00000000-0000-0000-0000-000000000003", "abb",
+                            Map.of("world_type", "all", "tags", List.of("medical")))));
+
+            FilterExpressionBuilder b = new FilterExpressionBuilder();
+            List<Document> results = store.similaritySearch(SearchRequest.builder()
+                    .query("a").topK(5).similarityThresholdAll()
+                    .filterExpression(b.and(b.in("world_type", "apocalypse", "all"), b.eq("tags", "combat")).build())
+                    .build());
+
+            assertEquals(List.of("00000000-0000-0000-0000-000000000001"),
+                    results.stream().map(Document::getId).toList());
+        }
+    }
+
+    @Test
+    void persistsAddsAndDeletesAcrossReopen() throws Exception {
+        try (LocalVectorStore store = new LocalVectorStore(embeddingModel, 3, directory)) {
+            store.add(List.of(
+                    new Document("00000000-0000-0000-0000-000000000001", "aaa", Map.of("title", "첫 문서")),
+                    new Document("00000000-0000-0000-0000-000000000002", "bbb", Map.of())));
+            store.delete(List.of("00000000-0000-0000-0000-000000000002"));
+            store.add(List.of(new Document("00000000-0000-0000-0000-000000000003", "ccc", Map.of())));
+        }
+
+        try (LocalVectorStore reopened = new LocalVectorStore(embeddingModel, 3, directory)) {
+            assertEquals(2, reopened.size());
+            List<Document> results = reopened.similaritySearch(SearchRequest.builder()
+                    .query("c").topK(1).similarityThresholdAll().build());
+            assertEquals("00000000-0000-0000-0000-000000000003", results.get(0).getId());
+
+            List<Document> first = reopened.similaritySearch(SearchRequest.builder()
+                    .query("a").topK(1).similarityThresholdAll().build());
+            assertEquals("첫 문서", first.get(0).getMetadata().get("title"));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.new_ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetrievalFilterTests {
+
+    @Test
+    void rejectsQuoteInWorldType() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RetrievalFilter.worldType("apocalypse') OR 1=1 --"));
+        assertThrows(IllegalArgumentException.class,
+                () -> RetrievalFilter.worldType("apocalypse\" || $.x == \"y"));
+    }
+
+    @Test
+    void rejectsBackslashAndControlCharactersInOtherFields() {
+        assertThrows(IllegalArgumentException.class, () -> RetrievalFilter.of(null, "npc\\", null, null));
+        assertThrows(IllegalArgumentException.class, () -> RetrievalFilter.of(null, null, "a\nb", null));
+        assertThrows(IllegalArgumentException.class, () -> RetrievalFilter.of(null, null, null, "ok,bad'tag"));
+    }
+
+    @Test
+    void acceptsOrdinaryValues() {
+        RetrievalFilter filter = RetrievalFilter.of(" apocalypse ", "NPC", null, "의료, 무기");
+
+        assertEquals("apocalypse", filter.worldType());
+        assertEquals(List.of("의료", "무기"), filter.tags());
+        assertTrue(RetrievalFilter.of("all", null, null, null).isEmpty());
+    }
+}